@@ -0,0 +1,32 @@
+package bookstore.benchmark;
+
+import bookstore.entity.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookServiceBenchmark {
+
+    @Benchmark
+    public Book getBookById(BookstoreState state) {
+        return state.bookService.getBookById(state.randomBookId());
+    }
+
+    @Benchmark
+    public Book updateBook(BookstoreState state) {
+        Book book = state.bookService.getBookById(state.randomBookId());
+        book.setPrice(book.getPrice() + 0.01);
+        return state.bookService.updateBook(book.getId(), book);
+    }
+}
@@ -0,0 +1,57 @@
+package bookstore.benchmark;
+
+import bookstore.CustomerRestApplication;
+import bookstore.entity.Book;
+import bookstore.service.BookService;
+import bookstore.service.OrderService;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+@State(Scope.Benchmark)
+public class BookstoreState {
+
+    static final int BOOK_COUNT = 1_000;
+
+    ConfigurableApplicationContext context;
+    BookService bookService;
+    OrderService orderService;
+    long[] bookIds;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(CustomerRestApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:bookstore-bench;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.jpa.open-in-view=false",
+                        "logging.level.root=WARN")
+                .run();
+        bookService = context.getBean(BookService.class);
+        orderService = context.getBean(OrderService.class);
+
+        bookIds = new long[BOOK_COUNT];
+        for (int i = 0; i < BOOK_COUNT; i++) {
+            Book book = new Book(null, "Benchmark Book " + i, "Author " + (i % 50), "978" + String.format("%010d", i),
+                    10.0 + i % 40, Integer.MAX_VALUE / 2, "Description of benchmark book " + i);
+            bookIds[i] = bookService.addBook(book).getId();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    long randomBookId() {
+        return bookIds[ThreadLocalRandom.current().nextInt(bookIds.length)];
+    }
+}
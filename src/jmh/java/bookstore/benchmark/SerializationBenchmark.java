@@ -0,0 +1,67 @@
+package bookstore.benchmark;
+
+import bookstore.entity.Book;
+import bookstore.entity.Order;
+import bookstore.entity.OrderStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"50", "500"})
+    int size;
+
+    private ObjectWriter bookListWriter;
+    private ObjectWriter orderListWriter;
+    private List<Book> books;
+    private List<Order> orders;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        bookListWriter = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, Book.class));
+        orderListWriter = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, Order.class));
+
+        books = new ArrayList<>(size);
+        orders = new ArrayList<>(size);
+        LocalDateTime now = LocalDateTime.now();
+        for (long i = 0; i < size; i++) {
+            books.add(new Book(i, "Benchmark Book " + i, "Author " + i % 50, "978" + String.format("%010d", i),
+                    10.0 + i % 40, 100, "Description of benchmark book " + i));
+            orders.add(new Order(i, i % 100, i, 1, OrderStatus.PROCESSING, now));
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeBooks() throws Exception {
+        return bookListWriter.writeValueAsBytes(books);
+    }
+
+    @Benchmark
+    public byte[] serializeOrders() throws Exception {
+        return orderListWriter.writeValueAsBytes(orders);
+    }
+}
@@ -0,0 +1,203 @@
+package bookstore.analytics;
+
+import bookstore.cache.BookCache;
+import bookstore.dto.AuthorRevenue;
+import bookstore.dto.BookSales;
+import bookstore.dto.DailySales;
+import bookstore.entity.Book;
+import bookstore.entity.Order;
+import bookstore.entity.OrderStatus;
+import bookstore.repository.DailyBookSales;
+import bookstore.repository.OrderRepository;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * In-memory sales rollups, bucketed by order day and kept for {@code bookstore.analytics.retention-days}.
+ * <p>
+ * Buckets are seeded with a grouped query over the retention window once the beans are created, before the web
+ * server starts taking orders, and from then on are maintained incrementally: placed orders are added and
+ * cancelled ones subtracted after their transaction commits. Revenue uses the unit price stored on each order, so a later price change moves neither a
+ * cancellation nor a rebuild; orders saved before the price was stored fall back to the book's current price.
+ */
+@Component
+public class SalesAggregator implements SmartInitializingSingleton {
+
+    private static final String UNKNOWN_AUTHOR = "unknown";
+
+    private final OrderRepository orderRepository;
+    private final BookCache bookCache;
+    private final int retentionDays;
+    private final Clock clock;
+    private final ConcurrentHashMap<LocalDate, DayBucket> days = new ConcurrentHashMap<>();
+    private volatile LocalDate lastPruned;
+
+    @Autowired
+    public SalesAggregator(OrderRepository orderRepository, BookCache bookCache,
+                           @Value("${bookstore.analytics.retention-days:90}") int retentionDays) {
+        this(orderRepository, bookCache, retentionDays, Clock.systemDefaultZone());
+    }
+
+    public SalesAggregator(OrderRepository orderRepository, BookCache bookCache, int retentionDays, Clock clock) {
+        this.orderRepository = orderRepository;
+        this.bookCache = bookCache;
+        this.retentionDays = retentionDays;
+        this.clock = clock;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+
+    /**
+     * Reseeds the buckets from the database. Orders recorded while this runs may be lost or counted twice, so it
+     * is only called before any order can be placed.
+     */
+    public void rebuild() {
+        days.clear();
+        LocalDate since = cutoff();
+        for (DailyBookSales row : orderRepository.summarizeSalesSince(since.atStartOfDay(), OrderStatus.CANCELLED)) {
+            add(row.getDay(), row.getBookId(), row.getAuthor(), row.getUnits(),
+                    row.getRevenue() == null ? 0 : Math.round(row.getRevenue() * 100));
+        }
+        lastPruned = LocalDate.now(clock);
+    }
+
+    public void recordPlaced(Order order) {
+        afterCommit(() -> apply(order, 1));
+    }
+
+    public void recordCancelled(Order order) {
+        afterCommit(() -> apply(order, -1));
+    }
+
+    public List<BookSales> topBooks(LocalDate from, LocalDate to, int limit) {
+        Map<Long, long[]> totals = new HashMap<>();
+        forEachDay(from, to, bucket -> bucket.books.forEach((bookId, counters) -> {
+            long[] total = totals.computeIfAbsent(bookId, id -> new long[2]);
+            total[0] += counters.units.sum();
+            total[1] += counters.revenueCents.sum();
+        }));
+        List<Map.Entry<Long, long[]>> top = totals.entrySet().stream()
+                .filter(entry -> entry.getValue()[0] > 0)
+                .sorted(Comparator.comparingLong((Map.Entry<Long, long[]> entry) -> entry.getValue()[0]).reversed()
+                        .thenComparing(Map.Entry::getKey))
+                .limit(Math.max(limit, 1))
+                .toList();
+        Map<Long, Book> books = top.isEmpty() ? Map.of() : bookCache.findAllById(top.stream().map(Map.Entry::getKey).toList());
+        return top.stream()
+                .map(entry -> new BookSales(entry.getKey(),
+                        books.containsKey(entry.getKey()) ? books.get(entry.getKey()).getTitle() : null,
+                        entry.getValue()[0], entry.getValue()[1] / 100.0))
+                .toList();
+    }
+
+    public List<DailySales> daily(LocalDate from, LocalDate to) {
+        List<DailySales> result = new ArrayList<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            DayBucket bucket = days.get(day);
+            result.add(bucket == null
+                    ? new DailySales(day, 0, 0)
+                    : new DailySales(day, bucket.units.sum(), bucket.revenueCents.sum() / 100.0));
+        }
+        return result;
+    }
+
+    public List<AuthorRevenue> revenueByAuthor(LocalDate from, LocalDate to) {
+        Map<String, Long> totals = new HashMap<>();
+        forEachDay(from, to, bucket -> bucket.revenueCentsByAuthor
+                .forEach((author, cents) -> totals.merge(author, cents.sum(), Long::sum)));
+        return totals.entrySet().stream()
+                .filter(entry -> entry.getValue() != 0)
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry::getKey))
+                .map(entry -> new AuthorRevenue(entry.getKey(), entry.getValue() / 100.0))
+                .toList();
+    }
+
+    private void apply(Order order, int sign) {
+        Book book = bookCache.findById(order.getBookId()).orElse(null);
+        Double price = order.getUnitPrice() != null ? order.getUnitPrice() : book == null ? null : book.getPrice();
+        long units = (long) sign * order.getQuantity();
+        add(order.getOrderDate().toLocalDate(), order.getBookId(),
+                book == null ? null : book.getAuthor(),
+                units,
+                price == null ? 0 : Math.round(price * 100) * units);
+        pruneIfDayChanged();
+    }
+
+    private void add(LocalDate day, Long bookId, String author, long units, long revenueCents) {
+        if (day.isBefore(cutoff())) {
+            return;
+        }
+        DayBucket bucket = days.computeIfAbsent(day, d -> new DayBucket());
+        BookCounters counters = bucket.books.computeIfAbsent(bookId, id -> new BookCounters());
+        counters.units.add(units);
+        counters.revenueCents.add(revenueCents);
+        bucket.units.add(units);
+        bucket.revenueCents.add(revenueCents);
+        bucket.revenueCentsByAuthor.computeIfAbsent(author == null ? UNKNOWN_AUTHOR : author, a -> new LongAdder())
+                .add(revenueCents);
+    }
+
+    private void forEachDay(LocalDate from, LocalDate to, Consumer<DayBucket> action) {
+        days.forEach((day, bucket) -> {
+            if (!day.isBefore(from) && !day.isAfter(to)) {
+                action.accept(bucket);
+            }
+        });
+    }
+
+    private void pruneIfDayChanged() {
+        LocalDate today = LocalDate.now(clock);
+        if (!today.equals(lastPruned)) {
+            lastPruned = today;
+            LocalDate cutoff = cutoff();
+            days.keySet().removeIf(day -> day.isBefore(cutoff));
+        }
+    }
+
+    private LocalDate cutoff() {
+        return LocalDate.now(clock).minusDays(retentionDays - 1L);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static final class DayBucket {
+        private final ConcurrentHashMap<Long, BookCounters> books = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<String, LongAdder> revenueCentsByAuthor = new ConcurrentHashMap<>();
+        private final LongAdder units = new LongAdder();
+        private final LongAdder revenueCents = new LongAdder();
+    }
+
+    private static final class BookCounters {
+        private final LongAdder units = new LongAdder();
+        private final LongAdder revenueCents = new LongAdder();
+    }
+}
@@ -0,0 +1,155 @@
+package bookstore.cache;
+
+import bookstore.entity.Book;
+import bookstore.repository.BookRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+@Component
+public class BookCache {
+
+    private final BookRepository bookRepository;
+    private final BoundedCache<Long, Book> booksById;
+    private final BoundedCache<String, Long> bookIdsByIsbn;
+
+    @Autowired
+    public BookCache(BookRepository bookRepository,
+                     @Value("${bookstore.cache.books.max-size:10000}") int maxSize,
+                     @Value("${bookstore.cache.books.ttl:PT10M}") Duration ttl) {
+        this.bookRepository = bookRepository;
+        this.booksById = new BoundedCache<>(maxSize, ttl);
+        this.bookIdsByIsbn = new BoundedCache<>(maxSize, ttl);
+    }
+
+    public Optional<Book> findById(Long id) {
+        Book book = booksById.get(id, key -> bookRepository.findById(key).map(Book::copy).orElse(null));
+        return Optional.ofNullable(book).map(Book::copy);
+    }
+
+    public Optional<Book> findByIsbn(String isbn) {
+        Long id = bookIdsByIsbn.get(isbn, this::loadIdByIsbn);
+        if (id == null) {
+            return Optional.empty();
+        }
+        Optional<Book> book = findById(id);
+        if (book.isEmpty() || !isbn.equals(book.get().getIsbn())) {
+            bookIdsByIsbn.invalidate(isbn);
+            id = bookIdsByIsbn.get(isbn, this::loadIdByIsbn);
+            return id == null ? Optional.empty() : findById(id);
+        }
+        return book;
+    }
+
+    /**
+     * Resolves many ids at once: cached books are served directly and all misses are loaded with one query,
+     * under the same invalidation guard as single loads. Ids that do not exist are absent from the result.
+     */
+    public Map<Long, Book> findAllById(Collection<Long> ids) {
+        Map<Long, Book> found = new HashMap<>();
+        booksById.getAll(ids, this::loadAllById).forEach((id, book) -> found.put(id, book.copy()));
+        return found;
+    }
+
+    /**
+     * Same as {@link #findAllById} for ISBNs; unmapped ISBNs are resolved with one IN query. Rows read by that
+     * query are cached only if no eviction ran while it was in flight.
+     */
+    public Map<String, Book> findAllByIsbn(Collection<String> isbns) {
+        long stamp = booksById.invalidationStamp();
+        Map<Long, Book> read = new HashMap<>();
+        Map<String, Long> ids = bookIdsByIsbn.getAll(isbns, misses -> {
+            Map<String, Long> loaded = new HashMap<>();
+            for (Book book : bookRepository.findByIsbnIn(misses)) {
+                loaded.put(book.getIsbn(), book.getId());
+                read.put(book.getId(), book.copy());
+            }
+            return loaded;
+        });
+        read.forEach((id, book) -> booksById.putIfNotInvalidatedSince(id, book.copy(), stamp));
+
+        Map<Long, Book> books = new HashMap<>(read);
+        List<Long> unread = ids.values().stream().filter(id -> !read.containsKey(id)).toList();
+        if (!unread.isEmpty()) {
+            books.putAll(findAllById(unread));
+        }
+        Map<String, Book> found = new HashMap<>();
+        ids.forEach((isbn, id) -> {
+            Book book = books.get(id);
+            if (book != null && isbn.equals(book.getIsbn())) {
+                found.put(isbn, book.copy());
+            } else {
+                // Stale ISBN mapping; the single lookup re-resolves it.
+                findByIsbn(isbn).ifPresent(resolved -> found.put(isbn, resolved));
+            }
+        });
+        return found;
+    }
+
+    public Optional<Book> peek(Long id) {
+        return Optional.ofNullable(booksById.getIfPresent(id)).map(Book::copy);
+    }
+
+    public Optional<Book> peekByIsbn(String isbn) {
+        Long id = bookIdsByIsbn.getIfPresent(isbn);
+        return id == null ? Optional.empty() : peek(id);
+    }
+
+    public void evict(Long id) {
+        booksById.invalidate(id);
+        afterCompletion(() -> booksById.invalidate(id));
+    }
+
+    public void evictIsbn(String isbn) {
+        bookIdsByIsbn.invalidate(isbn);
+        afterCompletion(() -> bookIdsByIsbn.invalidate(isbn));
+    }
+
+    public Map<String, CacheStats> stats() {
+        Map<String, CacheStats> stats = new LinkedHashMap<>();
+        stats.put("booksById", booksById.stats());
+        stats.put("bookIdsByIsbn", bookIdsByIsbn.stats());
+        return stats;
+    }
+
+    // The row is cached only if no eviction ran while it was being read; otherwise it may predate that eviction.
+    private Long loadIdByIsbn(String isbn) {
+        long stamp = booksById.invalidationStamp();
+        return bookRepository.findByIsbn(isbn)
+                .map(book -> {
+                    booksById.putIfNotInvalidatedSince(book.getId(), book.copy(), stamp);
+                    return book.getId();
+                })
+                .orElse(null);
+    }
+
+    private Map<Long, Book> loadAllById(Set<Long> ids) {
+        Map<Long, Book> loaded = new HashMap<>();
+        for (Book book : bookRepository.findAllById(ids)) {
+            loaded.put(book.getId(), book.copy());
+        }
+        return loaded;
+    }
+
+    private static void afterCompletion(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    action.run();
+                }
+            });
+        }
+    }
+}
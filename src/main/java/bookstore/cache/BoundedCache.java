@@ -0,0 +1,269 @@
+package bookstore.cache;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Size- and TTL-bounded cache with single-flight loading.
+ * <p>
+ * Concurrent misses for the same key share one loader call. Entries are evicted in
+ * insertion order once the cache grows past its maximum size, and lazily when their
+ * TTL has passed. An {@link #invalidate} that races with a load wins: the loaded value
+ * is handed to the waiting callers but never stored.
+ */
+public class BoundedCache<K, V> {
+
+    private final ConcurrentHashMap<K, Entry<K, V>> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<K, CompletableFuture<V>> loads = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Entry<K, V>> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final ReentrantLock sweepLock = new ReentrantLock();
+    private final int maxSize;
+    private final long ttlNanos;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public BoundedCache(int maxSize, Duration ttl) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive.");
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        Entry<K, V> entry = entries.get(key);
+        if (entry != null) {
+            if (!entry.isExpired(System.nanoTime())) {
+                hits.increment();
+                return entry.value;
+            }
+            if (entries.remove(key, entry)) {
+                evictions.increment();
+            }
+        }
+        misses.increment();
+
+        CompletableFuture<V> load = new CompletableFuture<>();
+        CompletableFuture<V> inFlight = loads.putIfAbsent(key, load);
+        if (inFlight != null) {
+            return await(inFlight);
+        }
+        try {
+            // A load that finished between the lookup above and taking the token has already stored its value.
+            Entry<K, V> loadedMeanwhile = entries.get(key);
+            if (loadedMeanwhile != null && !loadedMeanwhile.isExpired(System.nanoTime())) {
+                load.complete(loadedMeanwhile.value);
+                return loadedMeanwhile.value;
+            }
+            V value = loader.apply(key);
+            if (value != null) {
+                store(key, value, load);
+            }
+            load.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loads.remove(key, load);
+        }
+    }
+
+    /**
+     * Bulk counterpart of {@link #get}: keys not cached and not already being loaded are handed to one loader
+     * call, and their results are stored under the same invalidation guard as single loads. Keys already in
+     * flight elsewhere are awaited rather than loaded twice. Keys the loader does not return are absent.
+     */
+    public Map<K, V> getAll(Collection<? extends K> keys, Function<Set<K>, Map<K, V>> loader) {
+        Map<K, V> found = new HashMap<>();
+        Map<K, CompletableFuture<V>> owned = new LinkedHashMap<>();
+        Map<K, CompletableFuture<V>> awaited = new HashMap<>();
+        long now = System.nanoTime();
+        for (K key : keys) {
+            if (found.containsKey(key) || owned.containsKey(key) || awaited.containsKey(key)) {
+                continue;
+            }
+            Entry<K, V> entry = entries.get(key);
+            if (entry != null) {
+                if (!entry.isExpired(now)) {
+                    hits.increment();
+                    found.put(key, entry.value);
+                    continue;
+                }
+                if (entries.remove(key, entry)) {
+                    evictions.increment();
+                }
+            }
+            misses.increment();
+            CompletableFuture<V> load = new CompletableFuture<>();
+            CompletableFuture<V> inFlight = loads.putIfAbsent(key, load);
+            if (inFlight != null) {
+                awaited.put(key, inFlight);
+            } else {
+                owned.put(key, load);
+            }
+        }
+
+        if (!owned.isEmpty()) {
+            try {
+                Map<K, V> loaded = loader.apply(Collections.unmodifiableSet(owned.keySet()));
+                owned.forEach((key, load) -> {
+                    V value = loaded.get(key);
+                    if (value != null) {
+                        store(key, value, load);
+                        found.put(key, value);
+                    }
+                    load.complete(value);
+                });
+            } catch (RuntimeException e) {
+                owned.values().forEach(load -> load.completeExceptionally(e));
+                throw e;
+            } finally {
+                owned.forEach(loads::remove);
+            }
+        }
+        // Owned keys are loaded before waiting, so two overlapping bulk loads can never wait on each other.
+        awaited.forEach((key, inFlight) -> {
+            V value = await(inFlight);
+            if (value != null) {
+                found.put(key, value);
+            }
+        });
+        return found;
+    }
+
+    public V getIfPresent(K key) {
+        Entry<K, V> entry = entries.get(key);
+        if (entry == null || entry.isExpired(System.nanoTime())) {
+            return null;
+        }
+        return entry.value;
+    }
+
+    public void put(K key, V value) {
+        store(key, value, null);
+    }
+
+    /**
+     * Returns a stamp to take before reading a value that will be stored with {@link #putIfNotInvalidatedSince}.
+     */
+    public long invalidationStamp() {
+        return invalidations.get();
+    }
+
+    /**
+     * Stores a value read after {@code stamp} was taken, unless any invalidation has happened since: the value
+     * may then predate that invalidation and is dropped rather than cached until its TTL.
+     */
+    public void putIfNotInvalidatedSince(K key, V value, long stamp) {
+        Entry<K, V> entry = new Entry<>(key, value, System.nanoTime() + ttlNanos);
+        Entry<K, V> stored = entries.compute(key, (k, current) -> invalidations.get() == stamp ? entry : current);
+        if (stored != entry) {
+            return;
+        }
+        insertionOrder.add(entry);
+        queued.incrementAndGet();
+        evictOverflow();
+    }
+
+    public void invalidate(K key) {
+        invalidations.incrementAndGet();
+        entries.compute(key, (k, current) -> {
+            loads.remove(k);
+            return null;
+        });
+    }
+
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        loads.clear();
+        entries.clear();
+    }
+
+    public CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), entries.size());
+    }
+
+    private void store(K key, V value, CompletableFuture<V> load) {
+        Entry<K, V> entry = new Entry<>(key, value, System.nanoTime() + ttlNanos);
+        Entry<K, V> stored = entries.compute(key, (k, current) -> {
+            if (load == null) {
+                loads.remove(k);
+                return entry;
+            }
+            return loads.get(k) == load ? entry : current;
+        });
+        if (stored != entry) {
+            return;
+        }
+        insertionOrder.add(entry);
+        queued.incrementAndGet();
+        evictOverflow();
+    }
+
+    private void evictOverflow() {
+        while (entries.size() > maxSize) {
+            Entry<K, V> oldest = insertionOrder.poll();
+            if (oldest == null) {
+                return;
+            }
+            queued.decrementAndGet();
+            if (entries.remove(oldest.key, oldest)) {
+                evictions.increment();
+            }
+        }
+        if (queued.get() > 2 * maxSize && sweepLock.tryLock()) {
+            try {
+                insertionOrder.removeIf(queuedEntry -> entries.get(queuedEntry.key) != queuedEntry);
+                queued.set(insertionOrder.size());
+            } finally {
+                sweepLock.unlock();
+            }
+        }
+    }
+
+    private static <V> V await(CompletableFuture<V> inFlight) {
+        try {
+            return inFlight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static final class Entry<K, V> {
+        private final K key;
+        private final V value;
+        private final long expiresAt;
+
+        private Entry(K key, V value, long expiresAt) {
+            this.key = key;
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package bookstore.cache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the responses to requests carrying an {@code Idempotency-Key} header, so a retried request
+ * gets the original response instead of running again.
+ * <p>
+ * Responses are kept in a {@link BoundedCache}, whose single-flight loading makes a duplicate that arrives
+ * while the first request is still running wait for that request's result. A key presented with a different
+ * request fingerprint is refused with 422. A request that fails with an exception stores nothing, so it may
+ * be retried.
+ */
+@Component
+public class IdempotencyStore {
+
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    public static final int MAX_KEY_LENGTH = 255;
+
+    private final BoundedCache<String, StoredResponse> responses;
+
+    @Autowired
+    public IdempotencyStore(@Value("${bookstore.idempotency.max-size:100000}") int maxSize,
+                            @Value("${bookstore.idempotency.ttl:PT24H}") Duration ttl) {
+        this.responses = new BoundedCache<>(maxSize, ttl);
+    }
+
+    /**
+     * Runs the action once per key and returns its response, or replays the stored one.
+     *
+     * @param fingerprint identifies the request the key was first used with, e.g. its method, path and body
+     */
+    @SuppressWarnings("unchecked")
+    public <T> ResponseEntity<T> execute(String key, String fingerprint, Supplier<ResponseEntity<T>> action) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters.");
+        }
+        boolean[] executed = new boolean[1];
+        StoredResponse stored = responses.get(key, k -> {
+            executed[0] = true;
+            return new StoredResponse(fingerprint, action.get());
+        });
+        if (!stored.fingerprint.equals(fingerprint)) {
+            return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).build();
+        }
+        ResponseEntity<T> response = (ResponseEntity<T>) stored.response;
+        if (executed[0]) {
+            return response;
+        }
+        return ResponseEntity.status(response.getStatusCode())
+                .headers(response.getHeaders())
+                .header(REPLAYED_HEADER, "true")
+                .body(response.getBody());
+    }
+
+    public CacheStats stats() {
+        return responses.stats();
+    }
+
+    private static final class StoredResponse {
+        private final String fingerprint;
+        private final ResponseEntity<?> response;
+
+        private StoredResponse(String fingerprint, ResponseEntity<?> response) {
+            this.fingerprint = fingerprint;
+            this.response = response;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package bookstore.cache;
+
+import bookstore.service.BookService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+@Component
+public class IsbnBloomFilterInitializer {
+
+    private final BookService bookService;
+    private final IsbnBloomFilter isbnBloomFilter;
+
+    @Autowired
+    public IsbnBloomFilterInitializer(BookService bookService, IsbnBloomFilter isbnBloomFilter) {
+        this.bookService = bookService;
+        this.isbnBloomFilter = isbnBloomFilter;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildFilter() {
+        bookService.streamIsbns(isbnBloomFilter::put);
+        isbnBloomFilter.markReady();
+    }
+}
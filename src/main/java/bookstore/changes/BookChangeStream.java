@@ -0,0 +1,209 @@
+package bookstore.changes;
+
+import bookstore.dto.BookChange;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Publishes committed catalog and stock changes to Server-Sent Events subscribers.
+ * <p>
+ * Every change gets a sequence number and is kept in a fixed-size replay ring. Event ids have the form
+ * {@code <epoch>-<sequence>}, where the epoch changes on every restart, so a client reconnecting with
+ * {@code Last-Event-ID} is replayed exactly what it missed. When the id is from an earlier epoch or has
+ * already fallen out of the ring, the client gets a single {@code reset} event and should reload the catalog.
+ * <p>
+ * Delivery runs on one dispatcher thread that drains the ring for each subscriber from its last sent
+ * sequence, so publishing never blocks on a slow client and a lagging client never sees a silent gap.
+ */
+@Component
+public class BookChangeStream {
+
+    private final BookChange[] ring;
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final CopyOnWriteArrayList<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final int maxSubscribers;
+    private final long timeoutMillis;
+    private final Duration heartbeatInterval;
+    private long nextSequence = 1;
+    private ScheduledExecutorService dispatcher;
+
+    @Autowired
+    public BookChangeStream(@Value("${bookstore.changes.replay-size:10000}") int replaySize,
+                            @Value("${bookstore.changes.max-subscribers:1000}") int maxSubscribers,
+                            @Value("${bookstore.changes.timeout:PT30M}") Duration timeout,
+                            @Value("${bookstore.changes.heartbeat:PT15S}") Duration heartbeatInterval) {
+        this.ring = new BookChange[replaySize];
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMillis = timeout.toMillis();
+        this.heartbeatInterval = heartbeatInterval;
+    }
+
+    @PostConstruct
+    public void start() {
+        dispatcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "book-change-stream");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dispatcher.scheduleWithFixedDelay(this::heartbeat, heartbeatInterval.toMillis(), heartbeatInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        dispatcher.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    /**
+     * Records a change once the surrounding transaction commits, or immediately outside one.
+     */
+    public void publish(BookChange.Type type, Long bookId, Integer quantity, Double price) {
+        Runnable append = () -> {
+            synchronized (ring) {
+                long sequence = nextSequence++;
+                ring[(int) (sequence % ring.length)] = new BookChange(sequence, type, bookId, quantity, price, Instant.now());
+            }
+            scheduleDrain();
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    append.run();
+                }
+            });
+        } else {
+            append.run();
+        }
+    }
+
+    public SseEmitter subscribe(String lastEventId) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new IllegalStateException("Too many change stream subscribers.");
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter, lastEventId == null ? head() : parse(lastEventId));
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        scheduleDrain();
+        return emitter;
+    }
+
+    public String getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * Returns the changes after the given event id, or empty if they can no longer be replayed.
+     */
+    public Optional<List<BookChange>> replay(String lastEventId) {
+        return Optional.ofNullable(since(parse(lastEventId)));
+    }
+
+    private long head() {
+        synchronized (ring) {
+            return nextSequence - 1;
+        }
+    }
+
+    private long parse(String eventId) {
+        int separator = eventId.lastIndexOf('-');
+        if (separator < 0 || !epoch.equals(eventId.substring(0, separator))) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(eventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private List<BookChange> since(long after) {
+        synchronized (ring) {
+            long head = nextSequence - 1;
+            long oldest = Math.max(1, head - ring.length + 1);
+            if (after < oldest - 1 || after > head) {
+                return null;
+            }
+            List<BookChange> changes = new ArrayList<>((int) (head - after));
+            for (long sequence = after + 1; sequence <= head; sequence++) {
+                changes.add(ring[(int) (sequence % ring.length)]);
+            }
+            return changes;
+        }
+    }
+
+    private void scheduleDrain() {
+        if (dispatcher != null && drainScheduled.compareAndSet(false, true)) {
+            dispatcher.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        drainScheduled.set(false);
+        for (Subscriber subscriber : subscribers) {
+            try {
+                List<BookChange> changes = since(subscriber.lastSent);
+                if (changes == null) {
+                    long head = head();
+                    subscriber.emitter.send(SseEmitter.event().id(epoch + "-" + head).name("reset").data(head));
+                    subscriber.lastSent = head;
+                    continue;
+                }
+                for (BookChange change : changes) {
+                    subscriber.emitter.send(SseEmitter.event()
+                            .id(epoch + "-" + change.getSequence())
+                            .name("book-change")
+                            .data(change));
+                    subscriber.lastSent = change.getSequence();
+                }
+            } catch (IOException | IllegalStateException e) {
+                subscribers.remove(subscriber);
+                subscriber.emitter.completeWithError(e);
+            }
+        }
+    }
+
+    private void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            try {
+                subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+            } catch (IOException | IllegalStateException e) {
+                subscribers.remove(subscriber);
+                subscriber.emitter.completeWithError(e);
+            }
+        }
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private long lastSent;
+
+        private Subscriber(SseEmitter emitter, long lastSent) {
+            this.emitter = emitter;
+            this.lastSent = lastSent;
+        }
+    }
+}
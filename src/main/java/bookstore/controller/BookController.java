@@ -1,13 +1,42 @@
 package bookstore.controller;
 
+import bookstore.cache.CacheStats;
+import bookstore.changes.BookChangeStream;
+import bookstore.dto.BookFields;
+import bookstore.dto.BookLookup;
+import bookstore.dto.BookVersion;
+import bookstore.dto.CursorPage;
+import bookstore.dto.ImportReport;
+import bookstore.dto.SearchResults;
 import bookstore.entity.Book;
+import bookstore.ingest.BookImporter;
 import bookstore.service.BookService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 
@@ -16,10 +45,17 @@ import java.util.Optional;
 public class BookController {
 
     private final BookService bookService;
+    private final BookImporter bookImporter;
+    private final BookChangeStream bookChangeStream;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public BookController(BookService bookService) {
+    public BookController(BookService bookService, BookImporter bookImporter, BookChangeStream bookChangeStream,
+                          ObjectMapper objectMapper) {
         this.bookService = bookService;
+        this.bookImporter = bookImporter;
+        this.bookChangeStream = bookChangeStream;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
@@ -29,32 +65,143 @@ public class BookController {
             return ResponseEntity.status(HttpStatus.CREATED).body(newBook);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.CONFLICT).body(null);
+        } catch (DataIntegrityViolationException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
         }
     }
 
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ResponseEntity<ImportReport> importCsv(InputStream body) throws IOException {
+        // Only a bad header is refused outright; a malformed record later on ends the import with a partial report.
+        try {
+            return ResponseEntity.ok(bookImporter.importCsv(new InputStreamReader(body, StandardCharsets.UTF_8)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
+        }
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ImportReport> importNdjson(InputStream body) throws IOException {
+        return ResponseEntity.ok(bookImporter.importNdjson(new InputStreamReader(body, StandardCharsets.UTF_8)));
+    }
+
     @GetMapping
-    public ResponseEntity<List<Book>> getAllBooks() {
-        List<Book> books = bookService.getAllBooks();
-        return ResponseEntity.ok(books);
+    public ResponseEntity<CursorPage<Book>> getAllBooks(@RequestParam(required = false) Long after,
+                                                        @RequestParam(defaultValue = "50") int limit) {
+        CursorPage<Book> page = bookService.getBooksPage(after, limit);
+        return ResponseEntity.ok().eTag(listETag(page.getItems())).body(page);
+    }
+
+    @GetMapping(params = "ids")
+    public ResponseEntity<List<BookLookup>> getBooksByIds(@RequestParam List<Long> ids) {
+        try {
+            return ResponseEntity.ok(bookService.getBooksByIds(ids));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
+        }
+    }
+
+    @GetMapping(params = {"fields", "!ids"})
+    public ResponseEntity<CursorPage<Map<String, Object>>> getAllBooks(@RequestParam String fields,
+                                                                       @RequestParam(required = false) Long after,
+                                                                       @RequestParam(defaultValue = "50") int limit) {
+        try {
+            CursorPage<Map<String, Object>> page = bookService.getBooksPage(after, limit, BookFields.parse(fields));
+            return ResponseEntity.ok().eTag(fieldsETag(page.getItems())).body(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
+        }
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllBooks() {
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.setRootValueSeparator(null);
+                bookService.streamBooks(book -> {
+                    try {
+                        generator.writeObject(book);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().body(body);
+    }
+
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamChanges(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                                                    @RequestParam(value = "since", required = false) String since) {
+        try {
+            return ResponseEntity.ok(bookChangeStream.subscribe(lastEventId != null ? lastEventId : since));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<SearchResults> searchBooks(@RequestParam("q") String query,
+                                                     @RequestParam(defaultValue = "0") int page,
+                                                     @RequestParam(defaultValue = "20") int size) {
+        SearchResults results = bookService.searchBooks(query, page, size);
+        return ResponseEntity.ok(results);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Book> getBookById(@PathVariable Long id) {
+    public ResponseEntity<Object> getBookById(@PathVariable Long id,
+                                              @RequestParam(required = false) String fields,
+                                              @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        BookFields selected;
+        try {
+            selected = fields == null ? null : BookFields.parse(fields);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
+        }
+        if (ifNoneMatch != null) {
+            Optional<BookVersion> version = bookService.getBookVersion(id);
+            if (version.isPresent() && version.get().matches(ifNoneMatch)) {
+                return notModified(version.get());
+            }
+        }
         try {
             Book book = bookService.getBookById(id);
-            return ResponseEntity.ok(book);
+            return withValidators(ResponseEntity.ok(), BookVersion.of(book)).body(representation(book, selected));
         } catch (NoSuchElementException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
         }
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<Book> updateBook(@PathVariable Long id, @RequestBody Book updatedBook) {
+    public ResponseEntity<Book> updateBook(@PathVariable Long id, @RequestBody Book updatedBook,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            Book book = bookService.updateBook(id, updatedBook);
-            return ResponseEntity.ok(book);
+            Book book = bookService.updateBook(id, updatedBook, ifMatch);
+            return withValidators(ResponseEntity.ok(), BookVersion.of(book)).body(book);
         } catch (NoSuchElementException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(null);
+        } catch (ConcurrencyFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(null);
+        }
+    }
+
+    @PatchMapping(value = "/{id}", consumes = {MediaType.APPLICATION_JSON_VALUE, "application/merge-patch+json"})
+    public ResponseEntity<Book> patchBook(@PathVariable Long id, @RequestBody JsonNode patch,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        try {
+            Book book = bookService.patchBook(id, patch, ifMatch);
+            return withValidators(ResponseEntity.ok(), BookVersion.of(book)).body(book);
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(null);
+        } catch (ConcurrencyFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(null);
         }
     }
 
@@ -69,15 +216,102 @@ public class BookController {
     }
 
     @GetMapping("/isbn/{isbn}")
-    public ResponseEntity<Book> getBookByIsbn(@PathVariable String isbn) {
+    public ResponseEntity<Object> getBookByIsbn(@PathVariable String isbn,
+                                                @RequestParam(required = false) String fields,
+                                                @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        BookFields selected;
+        try {
+            selected = fields == null ? null : BookFields.parse(fields);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
+        }
+        if (ifNoneMatch != null) {
+            Optional<BookVersion> version = bookService.getBookVersionByIsbn(isbn);
+            if (version.isPresent() && version.get().matches(ifNoneMatch)) {
+                return notModified(version.get());
+            }
+        }
         Optional<Book> book = bookService.getBookByIsbn(isbn);
-        return book.map(ResponseEntity::ok)
+        return book.map(b -> withValidators(ResponseEntity.ok(), BookVersion.of(b)).body(representation(b, selected)))
                 .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body(null));
     }
 
+    @PostMapping("/isbn/lookup")
+    public ResponseEntity<List<BookLookup>> lookupByIsbns(@RequestBody List<String> isbns) {
+        try {
+            return ResponseEntity.ok(bookService.getBooksByIsbns(isbns));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
+        }
+    }
+
     @GetMapping("/author/{author}")
     public ResponseEntity<List<Book>> getBooksByAuthor(@PathVariable String author) {
         List<Book> books = bookService.getBooksByAuthor(author);
-        return ResponseEntity.ok(books);
+        return ResponseEntity.ok().eTag(listETag(books)).body(books);
+    }
+
+    @GetMapping(value = "/author/{author}", params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getBooksByAuthor(@PathVariable String author,
+                                                                      @RequestParam String fields) {
+        try {
+            List<Map<String, Object>> books = bookService.getBooksByAuthor(author, BookFields.parse(fields));
+            return ResponseEntity.ok().eTag(fieldsETag(books)).body(books);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
+        }
+    }
+
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, CacheStats>> getCacheStats() {
+        return ResponseEntity.ok(bookService.getCacheStats());
+    }
+
+    private static ResponseEntity.BodyBuilder withValidators(ResponseEntity.BodyBuilder builder, BookVersion version) {
+        builder.eTag(version.getETag()).varyBy(HttpHeaders.ACCEPT);
+        if (version.getLastModified() != null) {
+            builder.lastModified(version.getLastModified());
+        }
+        return builder;
+    }
+
+    private static <T> ResponseEntity<T> notModified(BookVersion version) {
+        return withValidators(ResponseEntity.status(HttpStatus.NOT_MODIFIED), version).build();
+    }
+
+    // Weak validator for list responses: the response still costs a query, but an unchanged page skips serialization.
+    private static String listETag(List<Book> books) {
+        StringBuilder tuples = new StringBuilder();
+        for (Book book : books) {
+            tuples.append(book.getId()).append(':').append(book.getVersion()).append(':').append(book.getQuantity()).append(';');
+        }
+        return weakETag(tuples);
+    }
+
+    private static String weakETag(CharSequence content) {
+        return weakETag(content.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // A digest rather than a combined hashCode, whose offsetting changes (version +1, quantity -31) collide.
+    private static String weakETag(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            return "W/\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+    }
+
+    // A sparse representation only changes when one of its selected values does, so its serialized form is hashed.
+    private String fieldsETag(List<Map<String, Object>> books) {
+        try {
+            return weakETag(objectMapper.writeValueAsBytes(books));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Book fields could not be serialized.", e);
+        }
+    }
+
+    private static Object representation(Book book, BookFields fields) {
+        return fields == null ? book : fields.select(book);
     }
 }
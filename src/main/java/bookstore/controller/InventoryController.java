@@ -0,0 +1,45 @@
+package bookstore.controller;
+
+import bookstore.dto.LowStockAlert;
+import bookstore.inventory.LowStockAlertStream;
+import bookstore.service.BookService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/inventory")
+public class InventoryController {
+
+    private final BookService bookService;
+    private final LowStockAlertStream lowStockAlertStream;
+
+    @Autowired
+    public InventoryController(BookService bookService, LowStockAlertStream lowStockAlertStream) {
+        this.bookService = bookService;
+        this.lowStockAlertStream = lowStockAlertStream;
+    }
+
+    @GetMapping("/low-stock")
+    public ResponseEntity<List<LowStockAlert>> getLowStock(@RequestParam(defaultValue = "0") int page,
+                                                           @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(bookService.getLowStock(page, size));
+    }
+
+    @GetMapping(value = "/low-stock/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamLowStock() {
+        try {
+            return ResponseEntity.ok(lowStockAlertStream.subscribe());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+}
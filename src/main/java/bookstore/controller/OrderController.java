@@ -1,15 +1,21 @@
 package bookstore.controller;
 
+import bookstore.cache.IdempotencyStore;
+import bookstore.dto.OrderHistoryItem;
 import bookstore.dto.OrderRequest;
-import bookstore.entity.Book;
+import bookstore.dto.OrderResult;
+import bookstore.dto.OrderTicket;
 import bookstore.entity.Order;
-import bookstore.service.BookService;
+import bookstore.ingest.OrderIngestionQueue;
 import bookstore.service.OrderService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.net.URI;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.NoSuchElementException;
 
@@ -17,49 +23,87 @@ import java.util.NoSuchElementException;
 @RequestMapping("/api/orders")
 public class OrderController {
 
+    private static final int MAX_BATCH_SIZE = 5000;
+
     private final OrderService orderService;
-    private final BookService bookService;
+    private final OrderIngestionQueue orderIngestionQueue;
+    private final IdempotencyStore idempotencyStore;
 
     @Autowired
-    public OrderController(OrderService orderService, BookService bookService) {
+    public OrderController(OrderService orderService, OrderIngestionQueue orderIngestionQueue,
+                           IdempotencyStore idempotencyStore) {
         this.orderService = orderService;
-        this.bookService = bookService;
+        this.orderIngestionQueue = orderIngestionQueue;
+        this.idempotencyStore = idempotencyStore;
     }
 
+    /**
+     * Places an order, or queues it and answers 202 with a ticket when the {@code Prefer} header asks for
+     * {@code respond-async}. Either way an {@code Idempotency-Key} makes a retry replay the first response.
+     */
     @PostMapping
-    public ResponseEntity<Order> createOrder(@RequestBody OrderRequest orderRequest) {
+    public ResponseEntity<?> createOrder(@RequestBody OrderRequest orderRequest,
+                                         @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+                                         @RequestHeader(value = "Prefer", required = false) List<String> preferences) {
+        boolean async = respondAsync(preferences);
         try {
-
-            Order order = orderService.createOrder(orderRequest.getCustomerId(), orderRequest.getBookId(), orderRequest.getQuantity());
-
-            Book book = bookService.getBookById(orderRequest.getBookId());
-
-            if (book == null) {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
-            }
-
-            if (book.getQuantity() < orderRequest.getQuantity()) {
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+            if (idempotencyKey == null) {
+                return async ? submitOrder(orderRequest) : placeOrder(orderRequest);
             }
+            String fingerprint = "POST /api/orders " + orderRequest.getCustomerId() + ":" + orderRequest.getBookId()
+                    + ":" + orderRequest.getQuantity();
+            return async
+                    ? idempotencyStore.execute(idempotencyKey, fingerprint, () -> submitOrder(orderRequest))
+                    : idempotencyStore.execute(idempotencyKey, fingerprint, () -> placeOrder(orderRequest));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        } catch (IllegalStateException e) {
+            // The ingestion queue is full or stopped; nothing was stored under the key, so a retry may succeed.
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
 
-            book.setQuantity(book.getQuantity() - orderRequest.getQuantity());
+    @GetMapping("/tickets/{ticketId}")
+    public ResponseEntity<OrderTicket> getTicket(@PathVariable String ticketId) {
+        return orderIngestionQueue.getTicket(ticketId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+    }
 
-            bookService.updateBook(book.getId(), book);
+    @PostMapping("/batch")
+    public ResponseEntity<List<OrderResult>> createOrders(@RequestBody List<OrderRequest> orderRequests) {
+        if (orderRequests.isEmpty() || orderRequests.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        List<OrderResult> results = orderService.createOrders(orderRequests);
+        return ResponseEntity.ok(results);
+    }
 
-            return ResponseEntity.status(HttpStatus.CREATED).body(order);
+    @PutMapping("/{orderId}/status")
+    public ResponseEntity<Order> updateOrderStatus(@PathVariable Long orderId,
+                                                   @RequestParam String status) {
+        try {
+            Order updatedOrder = orderService.updateOrderStatus(orderId, status);
+            return ResponseEntity.ok(updatedOrder);
         } catch (NoSuchElementException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         }
     }
 
-
-    @PutMapping("/{orderId}/status")
-    public ResponseEntity<Order> updateOrderStatus(@PathVariable Long orderId,
-                                                   @RequestParam String status) {
-        Order updatedOrder = orderService.updateOrderStatus(orderId, status);
-        return ResponseEntity.ok(updatedOrder);
+    @GetMapping(params = "status")
+    public ResponseEntity<List<Order>> getOrdersByStatus(@RequestParam String status,
+                                                         @RequestParam(defaultValue = "0") int page,
+                                                         @RequestParam(defaultValue = "50") int size) {
+        try {
+            List<Order> orders = orderService.getOrdersByStatus(status, page, size);
+            return ResponseEntity.ok(orders);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
     }
 
     @GetMapping("/{orderId}")
@@ -73,4 +117,54 @@ public class OrderController {
         List<Order> orders = orderService.getOrdersByCustomerId(customerId);
         return ResponseEntity.ok(orders);
     }
+
+    @GetMapping("/customer/{customerId}/history")
+    public ResponseEntity<List<OrderHistoryItem>> getOrderHistory(@PathVariable Long customerId,
+                                                                  @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                  @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                                  @RequestParam(defaultValue = "0") int page,
+                                                                  @RequestParam(defaultValue = "50") int size) {
+        try {
+            return ResponseEntity.ok(orderService.getOrderHistory(customerId, from, to, page, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+    }
+
+    private ResponseEntity<OrderTicket> submitOrder(OrderRequest orderRequest) {
+        try {
+            OrderTicket ticket = orderIngestionQueue.submit(orderRequest);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/orders/tickets/" + ticket.getTicketId()))
+                    .body(ticket);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+    }
+
+    private ResponseEntity<Order> placeOrder(OrderRequest orderRequest) {
+        try {
+            Order order = orderService.createOrder(orderRequest.getCustomerId(), orderRequest.getBookId(), orderRequest.getQuantity());
+            return ResponseEntity.status(HttpStatus.CREATED).body(order);
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+    }
+
+    private static boolean respondAsync(List<String> preferences) {
+        if (preferences == null) {
+            return false;
+        }
+        // Prefer holds comma-separated preferences, each a token with an optional value and parameters.
+        for (String header : preferences) {
+            for (String preference : header.split(",")) {
+                if (preference.split("[=;]", 2)[0].trim().equalsIgnoreCase("respond-async")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
 }
@@ -0,0 +1,72 @@
+package bookstore.controller;
+
+import bookstore.analytics.SalesAggregator;
+import bookstore.dto.AuthorRevenue;
+import bookstore.dto.BookSales;
+import bookstore.dto.DailySales;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/sales")
+public class SalesController {
+
+    private static final int DEFAULT_WINDOW_DAYS = 30;
+    private static final int MAX_WINDOW_DAYS = 366;
+    private static final int MAX_TOP_BOOKS = 100;
+
+    private final SalesAggregator salesAggregator;
+
+    @Autowired
+    public SalesController(SalesAggregator salesAggregator) {
+        this.salesAggregator = salesAggregator;
+    }
+
+    @GetMapping("/top-books")
+    public ResponseEntity<List<BookSales>> getTopBooks(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                       @RequestParam(defaultValue = "10") int limit) {
+        LocalDate end = to == null ? LocalDate.now() : to;
+        LocalDate start = from == null ? end.minusDays(DEFAULT_WINDOW_DAYS - 1) : from;
+        if (!validWindow(start, end)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        return ResponseEntity.ok(salesAggregator.topBooks(start, end, Math.min(limit, MAX_TOP_BOOKS)));
+    }
+
+    @GetMapping("/daily")
+    public ResponseEntity<List<DailySales>> getDailySales(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to == null ? LocalDate.now() : to;
+        LocalDate start = from == null ? end.minusDays(DEFAULT_WINDOW_DAYS - 1) : from;
+        if (!validWindow(start, end)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        return ResponseEntity.ok(salesAggregator.daily(start, end));
+    }
+
+    @GetMapping("/authors")
+    public ResponseEntity<List<AuthorRevenue>> getRevenueByAuthor(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                  @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to == null ? LocalDate.now() : to;
+        LocalDate start = from == null ? end.minusDays(DEFAULT_WINDOW_DAYS - 1) : from;
+        if (!validWindow(start, end)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+        return ResponseEntity.ok(salesAggregator.revenueByAuthor(start, end));
+    }
+
+    private static boolean validWindow(LocalDate from, LocalDate to) {
+        return !from.isAfter(to) && ChronoUnit.DAYS.between(from, to) < MAX_WINDOW_DAYS;
+    }
+}
@@ -0,0 +1,30 @@
+package bookstore.dto;
+
+public class AuthorRevenue {
+    private String author;
+    private double revenue;
+
+    public AuthorRevenue(String author, double revenue) {
+        this.author = author;
+        this.revenue = revenue;
+    }
+
+    public AuthorRevenue() {
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public void setAuthor(String author) {
+        this.author = author;
+    }
+
+    public double getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(double revenue) {
+        this.revenue = revenue;
+    }
+}
@@ -0,0 +1,77 @@
+package bookstore.dto;
+
+import java.time.Instant;
+
+public class BookChange {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED, STOCK
+    }
+
+    private long sequence;
+    private Type type;
+    private Long bookId;
+    private Integer quantity;
+    private Double price;
+    private Instant occurredAt;
+
+    public BookChange(long sequence, Type type, Long bookId, Integer quantity, Double price, Instant occurredAt) {
+        this.sequence = sequence;
+        this.type = type;
+        this.bookId = bookId;
+        this.quantity = quantity;
+        this.price = price;
+        this.occurredAt = occurredAt;
+    }
+
+    public BookChange() {
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(Long bookId) {
+        this.bookId = bookId;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+
+    public Double getPrice() {
+        return price;
+    }
+
+    public void setPrice(Double price) {
+        this.price = price;
+    }
+
+    public Instant getOccurredAt() {
+        return occurredAt;
+    }
+
+    public void setOccurredAt(Instant occurredAt) {
+        this.occurredAt = occurredAt;
+    }
+}
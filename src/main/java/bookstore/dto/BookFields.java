@@ -0,0 +1,90 @@
+package bookstore.dto;
+
+import bookstore.entity.Book;
+import bookstore.repository.BookSummary;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * A sparse fieldset from a {@code ?fields=} parameter, in the order the client listed the fields.
+ */
+public final class BookFields {
+
+    private static final Set<String> NAMES = Set.of("id", "title", "author", "isbn", "price", "quantity",
+            "description", "reorderLevel", "version", "lastModified");
+
+    private final List<String> names;
+
+    private BookFields(List<String> names) {
+        this.names = names;
+    }
+
+    public static BookFields parse(String fields) {
+        List<String> names = new ArrayList<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty() || names.contains(name)) {
+                continue;
+            }
+            if (!NAMES.contains(name)) {
+                throw new IllegalArgumentException("Unknown book field '" + name + "'.");
+            }
+            names.add(name);
+        }
+        if (names.isEmpty()) {
+            throw new IllegalArgumentException("At least one field must be requested.");
+        }
+        return new BookFields(List.copyOf(names));
+    }
+
+    public List<String> getNames() {
+        return names;
+    }
+
+    public boolean includesDescription() {
+        return names.contains("description");
+    }
+
+    public Map<String, Object> select(Book book) {
+        return select(name -> switch (name) {
+            case "id" -> book.getId();
+            case "title" -> book.getTitle();
+            case "author" -> book.getAuthor();
+            case "isbn" -> book.getIsbn();
+            case "price" -> book.getPrice();
+            case "quantity" -> book.getQuantity();
+            case "description" -> book.getDescription();
+            case "reorderLevel" -> book.getReorderLevel();
+            case "version" -> book.getVersion();
+            default -> book.getLastModified();
+        });
+    }
+
+    public Map<String, Object> select(BookSummary book) {
+        return select(name -> switch (name) {
+            case "id" -> book.getId();
+            case "title" -> book.getTitle();
+            case "author" -> book.getAuthor();
+            case "isbn" -> book.getIsbn();
+            case "price" -> book.getPrice();
+            case "quantity" -> book.getQuantity();
+            case "reorderLevel" -> book.getReorderLevel();
+            case "version" -> book.getVersion();
+            case "lastModified" -> book.getLastModified();
+            default -> throw new IllegalStateException("Summary has no " + name + ".");
+        });
+    }
+
+    private Map<String, Object> select(Function<String, Object> value) {
+        Map<String, Object> selected = new LinkedHashMap<>();
+        for (String name : names) {
+            selected.put(name, value.apply(name));
+        }
+        return selected;
+    }
+}
@@ -0,0 +1,49 @@
+package bookstore.dto;
+
+import bookstore.entity.Book;
+
+/**
+ * One entry of a multi-get response: the requested key, whether it was found, and the book if it was.
+ */
+public class BookLookup {
+    private String key;
+    private boolean found;
+    private Book book;
+
+    public BookLookup(String key, boolean found, Book book) {
+        this.key = key;
+        this.found = found;
+        this.book = book;
+    }
+
+    public BookLookup() {
+    }
+
+    public static BookLookup of(String key, Book book) {
+        return new BookLookup(key, book != null, book);
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public void setKey(String key) {
+        this.key = key;
+    }
+
+    public boolean isFound() {
+        return found;
+    }
+
+    public void setFound(boolean found) {
+        this.found = found;
+    }
+
+    public Book getBook() {
+        return book;
+    }
+
+    public void setBook(Book book) {
+        this.book = book;
+    }
+}
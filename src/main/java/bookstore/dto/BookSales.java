@@ -0,0 +1,50 @@
+package bookstore.dto;
+
+public class BookSales {
+    private Long bookId;
+    private String title;
+    private long units;
+    private double revenue;
+
+    public BookSales(Long bookId, String title, long units, double revenue) {
+        this.bookId = bookId;
+        this.title = title;
+        this.units = units;
+        this.revenue = revenue;
+    }
+
+    public BookSales() {
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(Long bookId) {
+        this.bookId = bookId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public long getUnits() {
+        return units;
+    }
+
+    public void setUnits(long units) {
+        this.units = units;
+    }
+
+    public double getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(double revenue) {
+        this.revenue = revenue;
+    }
+}
@@ -0,0 +1,66 @@
+package bookstore.dto;
+
+import bookstore.entity.Book;
+
+import java.time.Instant;
+
+public class BookVersion {
+    private final Long id;
+    private final Long version;
+    private final Integer quantity;
+    private final Instant lastModified;
+
+    public BookVersion(Long id, Long version, Integer quantity, Instant lastModified) {
+        this.id = id;
+        this.version = version;
+        this.quantity = quantity;
+        this.lastModified = lastModified;
+    }
+
+    public static BookVersion of(Book book) {
+        return new BookVersion(book.getId(), book.getVersion(), book.getQuantity(), book.getLastModified());
+    }
+
+    public BookVersion withQuantity(Integer quantity) {
+        return new BookVersion(id, version, quantity, lastModified);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public Instant getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * A weak validator: JSON, CBOR, Smile and Protobuf, and every sparse field set, share it, so it cannot
+     * claim the byte-for-byte equality of a strong one. Responses carrying it vary by {@code Accept}.
+     */
+    public String getETag() {
+        return "W/" + opaqueTag();
+    }
+
+    public boolean matches(String entityTags) {
+        String eTag = opaqueTag();
+        for (String candidate : entityTags.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(eTag) || tag.equals("W/" + eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String opaqueTag() {
+        return "\"" + version + "-" + quantity + "\"";
+    }
+}
@@ -0,0 +1,42 @@
+package bookstore.dto;
+
+import java.time.LocalDate;
+
+public class DailySales {
+    private LocalDate date;
+    private long units;
+    private double revenue;
+
+    public DailySales(LocalDate date, long units, double revenue) {
+        this.date = date;
+        this.units = units;
+        this.revenue = revenue;
+    }
+
+    public DailySales() {
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public long getUnits() {
+        return units;
+    }
+
+    public void setUnits(long units) {
+        this.units = units;
+    }
+
+    public double getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(double revenue) {
+        this.revenue = revenue;
+    }
+}
@@ -0,0 +1,52 @@
+package bookstore.dto;
+
+import java.util.List;
+
+public class ImportReport {
+    private long inserted;
+    private long duplicates;
+    private long rejected;
+    private List<String> errors;
+
+    public ImportReport(long inserted, long duplicates, long rejected, List<String> errors) {
+        this.inserted = inserted;
+        this.duplicates = duplicates;
+        this.rejected = rejected;
+        this.errors = errors;
+    }
+
+    public ImportReport() {
+    }
+
+    public long getInserted() {
+        return inserted;
+    }
+
+    public void setInserted(long inserted) {
+        this.inserted = inserted;
+    }
+
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    public void setDuplicates(long duplicates) {
+        this.duplicates = duplicates;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<String> errors) {
+        this.errors = errors;
+    }
+}
@@ -0,0 +1,52 @@
+package bookstore.dto;
+
+import java.time.Instant;
+
+public class LowStockAlert {
+    private Long bookId;
+    private int quantity;
+    private int reorderLevel;
+    private Instant detectedAt;
+
+    public LowStockAlert(Long bookId, int quantity, int reorderLevel, Instant detectedAt) {
+        this.bookId = bookId;
+        this.quantity = quantity;
+        this.reorderLevel = reorderLevel;
+        this.detectedAt = detectedAt;
+    }
+
+    public LowStockAlert() {
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(Long bookId) {
+        this.bookId = bookId;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+
+    public int getReorderLevel() {
+        return reorderLevel;
+    }
+
+    public void setReorderLevel(int reorderLevel) {
+        this.reorderLevel = reorderLevel;
+    }
+
+    public Instant getDetectedAt() {
+        return detectedAt;
+    }
+
+    public void setDetectedAt(Instant detectedAt) {
+        this.detectedAt = detectedAt;
+    }
+}
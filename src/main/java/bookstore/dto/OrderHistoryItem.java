@@ -0,0 +1,75 @@
+package bookstore.dto;
+
+import bookstore.entity.OrderStatus;
+
+import java.time.LocalDateTime;
+
+public class OrderHistoryItem {
+    private Long orderId;
+    private Long bookId;
+    private String bookTitle;
+    private Integer quantity;
+    private OrderStatus status;
+    private LocalDateTime orderDate;
+
+    public OrderHistoryItem(Long orderId, Long bookId, String bookTitle, Integer quantity, OrderStatus status,
+                            LocalDateTime orderDate) {
+        this.orderId = orderId;
+        this.bookId = bookId;
+        this.bookTitle = bookTitle;
+        this.quantity = quantity;
+        this.status = status;
+        this.orderDate = orderDate;
+    }
+
+    public OrderHistoryItem() {
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(Long orderId) {
+        this.orderId = orderId;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(Long bookId) {
+        this.bookId = bookId;
+    }
+
+    public String getBookTitle() {
+        return bookTitle;
+    }
+
+    public void setBookTitle(String bookTitle) {
+        this.bookTitle = bookTitle;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+
+    public OrderStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(OrderStatus status) {
+        this.status = status;
+    }
+
+    public LocalDateTime getOrderDate() {
+        return orderDate;
+    }
+
+    public void setOrderDate(LocalDateTime orderDate) {
+        this.orderDate = orderDate;
+    }
+}
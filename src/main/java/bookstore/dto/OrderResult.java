@@ -0,0 +1,50 @@
+package bookstore.dto;
+
+import bookstore.entity.Order;
+
+public class OrderResult {
+    private boolean success;
+    private Order order;
+    private String error;
+
+    public OrderResult(boolean success, Order order, String error) {
+        this.success = success;
+        this.order = order;
+        this.error = error;
+    }
+
+    public OrderResult() {
+    }
+
+    public static OrderResult success(Order order) {
+        return new OrderResult(true, order, null);
+    }
+
+    public static OrderResult failure(String error) {
+        return new OrderResult(false, null, error);
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    public Order getOrder() {
+        return order;
+    }
+
+    public void setOrder(Order order) {
+        this.order = order;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
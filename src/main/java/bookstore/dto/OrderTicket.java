@@ -0,0 +1,49 @@
+package bookstore.dto;
+
+import bookstore.entity.Order;
+
+public class OrderTicket {
+
+    public enum Status {
+        QUEUED, COMPLETED, FAILED
+    }
+
+    private final String ticketId;
+    private volatile Status status = Status.QUEUED;
+    private volatile Order order;
+    private volatile String error;
+
+    public OrderTicket(String ticketId) {
+        this.ticketId = ticketId;
+    }
+
+    public String getTicketId() {
+        return ticketId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Order getOrder() {
+        return order;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void complete(OrderResult result) {
+        if (result.isSuccess()) {
+            this.order = result.getOrder();
+            this.status = Status.COMPLETED;
+        } else {
+            fail(result.getError());
+        }
+    }
+
+    public void fail(String error) {
+        this.error = error;
+        this.status = Status.FAILED;
+    }
+}
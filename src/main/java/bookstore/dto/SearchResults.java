@@ -0,0 +1,65 @@
+package bookstore.dto;
+
+import bookstore.entity.Book;
+
+import java.util.List;
+
+public class SearchResults {
+    private List<Book> items;
+    private long total;
+    // False when a prefix matched too many terms to search them all; total is then a lower bound.
+    private boolean totalExact = true;
+    private int page;
+    private int size;
+
+    public SearchResults(List<Book> items, long total, boolean totalExact, int page, int size) {
+        this.items = items;
+        this.total = total;
+        this.totalExact = totalExact;
+        this.page = page;
+        this.size = size;
+    }
+
+    public SearchResults() {
+    }
+
+    public List<Book> getItems() {
+        return items;
+    }
+
+    public void setItems(List<Book> items) {
+        this.items = items;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public boolean isTotalExact() {
+        return totalExact;
+    }
+
+    public void setTotalExact(boolean totalExact) {
+        this.totalExact = totalExact;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public void setPage(int page) {
+        this.page = page;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+}
@@ -4,12 +4,27 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+import org.hibernate.annotations.DynamicUpdate;
+
+import java.time.Instant;
 import java.util.Objects;
 
 @Entity
+@DynamicUpdate
+@Table(indexes = {
+        @Index(name = "idx_book_isbn", columnList = "isbn", unique = true),
+        @Index(name = "idx_book_author", columnList = "author")
+})
 public class Book {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_seq")
+    @SequenceGenerator(name = "book_seq", sequenceName = "book_seq", allocationSize = 50)
     private Long id;
     private String title;
     private String author;
@@ -17,6 +32,10 @@ public class Book {
     private Double price;
     private Integer quantity;
     private String description;
+    private Integer reorderLevel;
+    @Version
+    private Long version;
+    private Instant lastModified;
 
     public Book() {
     }
@@ -87,6 +106,44 @@ public class Book {
         this.description = description;
     }
 
+    public Integer getReorderLevel() {
+        return reorderLevel;
+    }
+
+    public void setReorderLevel(Integer reorderLevel) {
+        this.reorderLevel = reorderLevel;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Instant getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(Instant lastModified) {
+        this.lastModified = lastModified;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        lastModified = Instant.now();
+    }
+
+    public Book copy() {
+        Book copy = new Book(id, title, author, isbn, price, quantity, description);
+        copy.reorderLevel = reorderLevel;
+        copy.version = version;
+        copy.lastModified = lastModified;
+        return copy;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
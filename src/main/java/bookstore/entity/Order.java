@@ -4,11 +4,15 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_customer_id_order_date", columnList = "customer_id, order_date"),
+        @Index(name = "idx_orders_status_order_date", columnList = "status, order_date")
+})
 public class Order {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -20,16 +24,18 @@ public class Order {
     @Column(nullable = false)
     private Integer quantity;
 
-    @Column(nullable = false)
-    private String status;
+    @Column(nullable = false, length = 1)
+    private OrderStatus status;
 
     @Column(nullable = false)
     private LocalDateTime orderDate;
 
+    private Double unitPrice;
+
     public Order() {
     }
 
-    public Order(Long id, Long customerId, Long bookId, Integer quantity, String status, LocalDateTime orderDate) {
+    public Order(Long id, Long customerId, Long bookId, Integer quantity, OrderStatus status, LocalDateTime orderDate) {
         this.id = id;
         this.customerId = customerId;
         this.bookId = bookId;
@@ -70,11 +76,11 @@ public class Order {
         this.quantity = quantity;
     }
 
-    public String getStatus() {
+    public OrderStatus getStatus() {
         return status;
     }
 
-    public void setStatus(String status) {
+    public void setStatus(OrderStatus status) {
         this.status = status;
     }
 
@@ -85,4 +91,12 @@ public class Order {
     public void setOrderDate(LocalDateTime orderDate) {
         this.orderDate = orderDate;
     }
+
+    public Double getUnitPrice() {
+        return unitPrice;
+    }
+
+    public void setUnitPrice(Double unitPrice) {
+        this.unitPrice = unitPrice;
+    }
 }
@@ -0,0 +1,62 @@
+package bookstore.entity;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+public enum OrderStatus {
+    PROCESSING('P', "on processing"),
+    SENT('S', "sent"),
+    DELIVERED('D', "delivered"),
+    CANCELLED('C', "cancelled");
+
+    private final char code;
+    private final String label;
+
+    OrderStatus(char code, String label) {
+        this.code = code;
+        this.label = label;
+    }
+
+    public char getCode() {
+        return code;
+    }
+
+    @JsonValue
+    public String getLabel() {
+        return label;
+    }
+
+    public boolean canTransitionTo(OrderStatus next) {
+        return next == this || allowedTransitions().contains(next);
+    }
+
+    private Set<OrderStatus> allowedTransitions() {
+        return switch (this) {
+            case PROCESSING -> EnumSet.of(SENT, CANCELLED);
+            case SENT -> EnumSet.of(DELIVERED);
+            case DELIVERED, CANCELLED -> EnumSet.noneOf(OrderStatus.class);
+        };
+    }
+
+    public static OrderStatus fromCode(char code) {
+        for (OrderStatus status : values()) {
+            if (status.code == code) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("Unknown order status code: " + code);
+    }
+
+    @JsonCreator
+    public static OrderStatus fromLabel(String label) {
+        for (OrderStatus status : values()) {
+            if (status.label.equalsIgnoreCase(label) || status.name().equalsIgnoreCase(label)) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("Unknown order status: " + label);
+    }
+}
@@ -0,0 +1,295 @@
+package bookstore.ingest;
+
+import bookstore.cache.IsbnBloomFilter;
+import bookstore.changes.BookChangeStream;
+import bookstore.dto.BookChange;
+import bookstore.dto.ImportReport;
+import bookstore.entity.Book;
+import bookstore.inventory.LowStockMonitor;
+import bookstore.repository.BookRepository;
+import bookstore.search.BookSearchIndex;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Streams a catalog feed into the database in fixed-size batches. Each batch runs in its own transaction,
+ * is deduplicated against itself and against the database with at most one IN query, and is then inserted
+ * through JDBC batching. Only the current batch is held in memory, whatever the size of the feed.
+ */
+@Component
+public class BookImporter {
+
+    private static final int MAX_REPORTED_ERRORS = 20;
+
+    private final BookRepository bookRepository;
+    private final BookSearchIndex bookSearchIndex;
+    private final IsbnBloomFilter isbnBloomFilter;
+    private final LowStockMonitor lowStockMonitor;
+    private final BookChangeStream bookChangeStream;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+
+    @Autowired
+    public BookImporter(BookRepository bookRepository, BookSearchIndex bookSearchIndex, IsbnBloomFilter isbnBloomFilter,
+                        LowStockMonitor lowStockMonitor, BookChangeStream bookChangeStream,
+                        PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+                        @Value("${bookstore.import.batch-size:500}") int batchSize) {
+        this.bookRepository = bookRepository;
+        this.bookSearchIndex = bookSearchIndex;
+        this.isbnBloomFilter = isbnBloomFilter;
+        this.lowStockMonitor = lowStockMonitor;
+        this.bookChangeStream = bookChangeStream;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Imports a CSV feed. The first record is a header naming the columns; title and isbn are required,
+     * author, price, quantity and description are optional.
+     */
+    public ImportReport importCsv(Reader reader) throws IOException {
+        CsvRecordReader csv = new CsvRecordReader(reader);
+        Run run = new Run();
+        List<String> header = csv.next();
+        if (header == null) {
+            return run.finish();
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        if (!columns.containsKey("title") || !columns.containsKey("isbn")) {
+            throw new IllegalArgumentException("CSV header must include title and isbn columns.");
+        }
+
+        long row = 1;
+        while (true) {
+            List<String> record;
+            try {
+                record = csv.next();
+            } catch (IllegalArgumentException e) {
+                // The reader cannot resynchronise after a malformed record; report what was committed so far.
+                run.abort(row + 1, e.getMessage());
+                break;
+            }
+            if (record == null) {
+                break;
+            }
+            row++;
+            if (record.size() == 1 && record.get(0).isBlank()) {
+                continue;
+            }
+            try {
+                run.add(row, toBook(
+                        column(record, columns, "title"),
+                        column(record, columns, "author"),
+                        column(record, columns, "isbn"),
+                        column(record, columns, "price"),
+                        column(record, columns, "quantity"),
+                        column(record, columns, "description")));
+            } catch (IllegalArgumentException e) {
+                run.reject(row, e.getMessage());
+            }
+        }
+        return run.finish();
+    }
+
+    /**
+     * Imports newline-delimited JSON, one book object per line.
+     */
+    public ImportReport importNdjson(Reader reader) throws IOException {
+        BufferedReader lines = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        Run run = new Run();
+        long row = 0;
+        String line;
+        while ((line = lines.readLine()) != null) {
+            row++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                JsonNode node = objectMapper.readTree(line);
+                if (!node.isObject()) {
+                    throw new IllegalArgumentException("expected a JSON object");
+                }
+                run.add(row, toBook(
+                        text(node, "title"),
+                        text(node, "author"),
+                        text(node, "isbn"),
+                        text(node, "price"),
+                        text(node, "quantity"),
+                        text(node, "description")));
+            } catch (JsonProcessingException e) {
+                run.reject(row, "malformed JSON");
+            } catch (IllegalArgumentException e) {
+                run.reject(row, e.getMessage());
+            }
+        }
+        return run.finish();
+    }
+
+    private static Book toBook(String title, String author, String isbn, String price, String quantity, String description) {
+        if (isbn == null || isbn.isBlank()) {
+            throw new IllegalArgumentException("isbn is required");
+        }
+        if (title == null || title.isBlank()) {
+            throw new IllegalArgumentException("title is required");
+        }
+        Double parsedPrice = null;
+        if (price != null && !price.isBlank()) {
+            try {
+                parsedPrice = Double.valueOf(price.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("price is not a number");
+            }
+            if (parsedPrice < 0 || parsedPrice.isNaN() || parsedPrice.isInfinite()) {
+                throw new IllegalArgumentException("price must be a non-negative number");
+            }
+        }
+        int parsedQuantity = 0;
+        if (quantity != null && !quantity.isBlank()) {
+            try {
+                parsedQuantity = Integer.parseInt(quantity.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("quantity is not an integer");
+            }
+            if (parsedQuantity < 0) {
+                throw new IllegalArgumentException("quantity must not be negative");
+            }
+        }
+        return new Book(null, title.trim(), author == null ? null : author.trim(), isbn.trim(),
+                parsedPrice, parsedQuantity, description);
+    }
+
+    private static String column(List<String> record, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        return index == null || index >= record.size() ? null : record.get(index);
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private class Run {
+        private final List<Book> pending = new ArrayList<>(batchSize);
+        private final List<Long> pendingRows = new ArrayList<>(batchSize);
+        private final List<String> errors = new ArrayList<>();
+        private long inserted;
+        private long duplicates;
+        private long rejected;
+
+        void add(long row, Book book) {
+            pending.add(book);
+            pendingRows.add(row);
+            if (pending.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void reject(long row, String reason) {
+            rejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add("row " + row + ": " + reason);
+            }
+        }
+
+        void abort(long row, String reason) {
+            rejected++;
+            errors.add("row " + row + ": " + reason + " Import stopped.");
+        }
+
+        ImportReport finish() {
+            flush();
+            return new ImportReport(inserted, duplicates, rejected, errors);
+        }
+
+        private void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            Map<String, Book> unique = new LinkedHashMap<>();
+            Map<String, Long> rows = new HashMap<>();
+            for (int i = 0; i < pending.size(); i++) {
+                Book book = pending.get(i);
+                if (unique.putIfAbsent(book.getIsbn(), book) != null) {
+                    duplicates++;
+                } else {
+                    rows.put(book.getIsbn(), pendingRows.get(i));
+                }
+            }
+            pending.clear();
+            pendingRows.clear();
+
+            // Only ISBNs the Bloom filter cannot rule out need the IN query; a feed of new titles skips it entirely.
+            List<String> candidates = new ArrayList<>();
+            for (String isbn : unique.keySet()) {
+                if (isbnBloomFilter.mightContain(isbn)) {
+                    candidates.add(isbn);
+                }
+                isbnBloomFilter.put(isbn);
+            }
+
+            List<Book> saved;
+            try {
+                saved = transactionTemplate.execute(status -> {
+                    Map<String, Book> fresh = new LinkedHashMap<>(unique);
+                    if (!candidates.isEmpty()) {
+                        bookRepository.findExistingIsbns(candidates).forEach(fresh::remove);
+                    }
+                    return bookRepository.saveAll(fresh.values());
+                });
+                duplicates += unique.size() - saved.size();
+            } catch (DataIntegrityViolationException e) {
+                // Another writer claimed one of these ISBNs after the IN query, or a row breaks another
+                // constraint; settle the batch row by row.
+                saved = saveIndividually(unique, rows);
+            }
+            inserted += saved.size();
+            for (Book book : saved) {
+                bookSearchIndex.index(book);
+                lowStockMonitor.record(book.getId(), book.getQuantity(), book.getReorderLevel());
+                bookChangeStream.publish(BookChange.Type.CREATED, book.getId(), book.getQuantity(), book.getPrice());
+            }
+        }
+
+        private List<Book> saveIndividually(Map<String, Book> books, Map<String, Long> rows) {
+            List<Book> saved = new ArrayList<>();
+            for (Map.Entry<String, Book> entry : books.entrySet()) {
+                Book fresh = entry.getValue().copy();
+                fresh.setId(null);
+                fresh.setVersion(null);
+                try {
+                    saved.add(transactionTemplate.execute(status -> bookRepository.saveAndFlush(fresh)));
+                } catch (DataIntegrityViolationException e) {
+                    // Only a row whose ISBN is now stored is a duplicate; any other violation rejects the row.
+                    if (bookRepository.findExistingIsbns(List.of(entry.getKey())).isEmpty()) {
+                        reject(rows.get(entry.getKey()), "violates a database constraint");
+                    } else {
+                        duplicates++;
+                    }
+                }
+            }
+            return saved;
+        }
+    }
+}
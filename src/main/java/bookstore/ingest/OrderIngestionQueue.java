@@ -0,0 +1,161 @@
+package bookstore.ingest;
+
+import bookstore.cache.BoundedCache;
+import bookstore.dto.OrderRequest;
+import bookstore.dto.OrderResult;
+import bookstore.dto.OrderTicket;
+import bookstore.service.OrderService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class OrderIngestionQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderIngestionQueue.class);
+    private static final PendingOrder STOP = new PendingOrder(null, null);
+
+    private final OrderService orderService;
+    private final BlockingQueue<PendingOrder> queue;
+    private final BoundedCache<String, OrderTicket> tickets;
+    private final int maxBatchSize;
+    private final long lingerNanos;
+    private volatile boolean running;
+    private Thread consumer;
+
+    @Autowired
+    public OrderIngestionQueue(OrderService orderService,
+                               @Value("${bookstore.orders.async.capacity:10000}") int capacity,
+                               @Value("${bookstore.orders.async.max-batch-size:500}") int maxBatchSize,
+                               @Value("${bookstore.orders.async.linger:PT0.005S}") Duration linger,
+                               @Value("${bookstore.orders.async.ticket-ttl:PT1H}") Duration ticketTtl) {
+        this.orderService = orderService;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.tickets = new BoundedCache<>(capacity * 10, ticketTtl);
+        this.maxBatchSize = maxBatchSize;
+        this.lingerNanos = linger.toNanos();
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        consumer = new Thread(this::consume, "order-ingestion");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        // Stop with a marker rather than an interrupt, so the batch being committed and everything queued
+        // before the marker are still written instead of failing on an interrupted connection.
+        if (queue.offer(STOP, 30, TimeUnit.SECONDS)) {
+            consumer.join(TimeUnit.SECONDS.toMillis(30));
+        }
+    }
+
+    public OrderTicket submit(OrderRequest orderRequest) {
+        if (orderRequest.getCustomerId() == null || orderRequest.getBookId() == null) {
+            throw new IllegalArgumentException("Customer ID and book ID are required.");
+        }
+        if (orderRequest.getQuantity() <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive.");
+        }
+        if (!running) {
+            throw new IllegalStateException("Order queue is stopped.");
+        }
+        OrderTicket ticket = new OrderTicket(UUID.randomUUID().toString());
+        tickets.put(ticket.getTicketId(), ticket);
+        if (!queue.offer(new PendingOrder(orderRequest, ticket))) {
+            tickets.invalidate(ticket.getTicketId());
+            throw new IllegalStateException("Order queue is full.");
+        }
+        return ticket;
+    }
+
+    public Optional<OrderTicket> getTicket(String ticketId) {
+        return Optional.ofNullable(tickets.getIfPresent(ticketId));
+    }
+
+    private void consume() {
+        List<PendingOrder> batch = new ArrayList<>(maxBatchSize);
+        boolean stopping = false;
+        while (!stopping || !queue.isEmpty()) {
+            try {
+                fillBatch(batch);
+            } catch (InterruptedException e) {
+                stopping = true;
+                queue.drainTo(batch, maxBatchSize - batch.size());
+            }
+            // Orders submitted just before stop() may land behind the marker, so the queue is drained to empty.
+            if (batch.remove(STOP)) {
+                stopping = true;
+            }
+            if (!batch.isEmpty()) {
+                commit(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void fillBatch(List<PendingOrder> batch) throws InterruptedException {
+        batch.add(queue.take());
+        long deadline = System.nanoTime() + lingerNanos;
+        while (batch.size() < maxBatchSize) {
+            queue.drainTo(batch, maxBatchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= maxBatchSize || remaining <= 0) {
+                return;
+            }
+            PendingOrder next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void commit(List<PendingOrder> batch) {
+        List<OrderRequest> orderRequests = new ArrayList<>(batch.size());
+        for (PendingOrder pendingOrder : batch) {
+            orderRequests.add(pendingOrder.orderRequest);
+        }
+        try {
+            List<OrderResult> results = orderService.createOrders(orderRequests);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).ticket.complete(results.get(i));
+            }
+        } catch (RuntimeException e) {
+            log.atError()
+                    .addKeyValue("batchSize", batch.size())
+                    .setCause(e)
+                    .log("Order batch commit failed");
+            for (PendingOrder pendingOrder : batch) {
+                pendingOrder.ticket.fail("Order could not be committed.");
+            }
+        }
+    }
+
+    private static final class PendingOrder {
+        private final OrderRequest orderRequest;
+        private final OrderTicket ticket;
+
+        private PendingOrder(OrderRequest orderRequest, OrderTicket ticket) {
+            this.orderRequest = orderRequest;
+            this.ticket = ticket;
+        }
+    }
+}
@@ -0,0 +1,380 @@
+package bookstore.inventory;
+
+import bookstore.repository.BookRepository;
+import bookstore.repository.StockLevel;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the available quantity of configured hot books in striped in-memory counters.
+ * <p>
+ * Reservations take stock from a counter stripe with a CAS instead of updating the book row,
+ * and the net reserved quantity is written behind to {@code book.quantity} on a fixed delay.
+ * Counters are loaded from the database on startup and flushed on shutdown.
+ * <p>
+ * A reset replaces the counter with an absolute quantity and starts a new epoch. Reservations
+ * made before the reset are part of that quantity, so releasing one of them is ignored.
+ */
+@Component
+public class InventoryEngine {
+
+    public static final long NOT_RESERVED = -1;
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryEngine.class);
+
+    private final BookRepository bookRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Set<Long> hotBookIds;
+    private final int stripes;
+    private final Duration flushInterval;
+    private final ConcurrentHashMap<Long, StripedCounter> counters = new ConcurrentHashMap<>();
+    private ScheduledExecutorService flusher;
+
+    @Autowired
+    public InventoryEngine(BookRepository bookRepository,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${bookstore.inventory.hot-book-ids:}") List<Long> hotBookIds,
+                           @Value("${bookstore.inventory.stripes:0}") int stripes,
+                           @Value("${bookstore.inventory.flush-interval:PT1S}") Duration flushInterval) {
+        this.bookRepository = bookRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.hotBookIds = new LinkedHashSet<>(hotBookIds);
+        this.stripes = stripes > 0 ? stripes : Runtime.getRuntime().availableProcessors();
+        this.flushInterval = flushInterval;
+    }
+
+    @PostConstruct
+    public void start() {
+        reconcile();
+        if (counters.isEmpty()) {
+            return;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "inventory-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = flushInterval.toMillis();
+        flusher.scheduleWithFixedDelay(this::flushAll, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (flusher != null) {
+            flusher.shutdown();
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        counters.forEach((bookId, counter) -> flush(bookId, counter, true));
+    }
+
+    public void reconcile() {
+        if (hotBookIds.isEmpty()) {
+            return;
+        }
+        for (StockLevel stockLevel : bookRepository.findStockLevelsByIdIn(hotBookIds)) {
+            int quantity = stockLevel.getQuantity() == null ? 0 : stockLevel.getQuantity();
+            counters.put(stockLevel.getId(), new StripedCounter(stripes, quantity));
+        }
+    }
+
+    public boolean isHot(Long bookId) {
+        return counters.containsKey(bookId);
+    }
+
+    public Integer getAvailable(Long bookId) {
+        StripedCounter counter = counters.get(bookId);
+        return counter == null ? null : (int) counter.available();
+    }
+
+    /**
+     * Returns the epoch the stock was reserved in, to be passed to {@link #release}, or {@link #NOT_RESERVED}.
+     */
+    public long tryReserve(Long bookId, int quantity) {
+        StripedCounter counter = counters.get(bookId);
+        if (counter == null) {
+            throw new IllegalStateException("Book with ID " + bookId + " is not tracked in memory.");
+        }
+        return counter.tryReserve(quantity);
+    }
+
+    public void release(Long bookId, int quantity, long epoch) {
+        StripedCounter counter = counters.get(bookId);
+        if (counter != null) {
+            counter.release(quantity, epoch);
+        }
+    }
+
+    public void resetTo(Long bookId, int quantity) {
+        StripedCounter counter = counters.get(bookId);
+        if (counter == null) {
+            return;
+        }
+        counter.reset(quantity);
+    }
+
+    public void forget(Long bookId) {
+        counters.remove(bookId);
+    }
+
+    public void flush(Long bookId) {
+        StripedCounter counter = counters.get(bookId);
+        if (counter != null) {
+            flush(bookId, counter, true);
+        }
+    }
+
+    /**
+     * Flushes the book's pending reservations and runs the action while no write-behind for the book can start,
+     * so an action that writes an absolute quantity never interleaves with one. The write lock is always taken
+     * before any row lock, by the action and by write-behind alike; a reset the action registers to run after
+     * its commit therefore happens before the next write-behind.
+     */
+    public <T> T whileFlushed(Long bookId, Supplier<T> action) {
+        StripedCounter counter = counters.get(bookId);
+        if (counter == null) {
+            return action.get();
+        }
+        counter.writeLock.lock();
+        try {
+            writeBehind(bookId, counter);
+            return action.get();
+        } finally {
+            counter.writeLock.unlock();
+        }
+    }
+
+    public void flushAll() {
+        // A book whose write lock is held is being updated or flushed already; it is picked up on the next run.
+        counters.forEach((bookId, counter) -> flush(bookId, counter, false));
+    }
+
+    private void flush(Long bookId, StripedCounter counter, boolean wait) {
+        if (wait) {
+            counter.writeLock.lock();
+        } else if (!counter.writeLock.tryLock()) {
+            return;
+        }
+        try {
+            writeBehind(bookId, counter);
+        } finally {
+            counter.writeLock.unlock();
+        }
+    }
+
+    // The counter lock only guards the drain; the database write runs outside it, so a reset never waits on a row.
+    private void writeBehind(Long bookId, StripedCounter counter) {
+        long reserved;
+        counter.lock.lock();
+        try {
+            reserved = counter.drainPending();
+        } finally {
+            counter.lock.unlock();
+        }
+        if (reserved == 0) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> bookRepository.applyReservedQuantity(bookId, (int) reserved));
+        } catch (RuntimeException e) {
+            counter.addPending(reserved);
+            log.atWarn()
+                    .addKeyValue("bookId", bookId)
+                    .addKeyValue("reserved", reserved)
+                    .setCause(e)
+                    .log("Inventory write-behind failed, will retry");
+        }
+    }
+
+    private static final class StripedCounter {
+        // Each stripe owns a cache line: slot 0 holds available stock, slot 1 the reserved quantity not yet flushed,
+        // slot 2 the reservations and releases currently running on the stripe.
+        private static final int SLOTS_PER_STRIPE = 8;
+
+        private final int stripes;
+        private final AtomicLongArray cells;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final ReentrantLock writeLock = new ReentrantLock();
+        private volatile boolean resetting;
+        private volatile long epoch;
+
+        private StripedCounter(int stripes, int quantity) {
+            this.stripes = stripes;
+            this.cells = new AtomicLongArray(stripes * SLOTS_PER_STRIPE);
+            set(quantity);
+        }
+
+        private void set(int quantity) {
+            for (int stripe = 0; stripe < stripes; stripe++) {
+                cells.set(available(stripe), quantity / stripes + (stripe < quantity % stripes ? 1 : 0));
+            }
+        }
+
+        private long available() {
+            long total = 0;
+            for (int stripe = 0; stripe < stripes; stripe++) {
+                total += cells.get(available(stripe));
+            }
+            return total;
+        }
+
+        private long tryReserve(int quantity) {
+            int home = enter();
+            try {
+                return take(home, quantity) ? epoch : NOT_RESERVED;
+            } finally {
+                exit(home);
+            }
+        }
+
+        private void release(int quantity, long reservedEpoch) {
+            int home = enter();
+            try {
+                if (reservedEpoch == epoch) {
+                    cells.addAndGet(available(home), quantity);
+                    cells.addAndGet(pending(home), -quantity);
+                }
+            } finally {
+                exit(home);
+            }
+        }
+
+        private void reset(int quantity) {
+            lock.lock();
+            try {
+                // Stop new reservations and releases, then wait for the running ones so none straddles the reset.
+                resetting = true;
+                while (running() > 0) {
+                    Thread.onSpinWait();
+                }
+                drainPending();
+                set(quantity);
+                epoch++;
+            } finally {
+                resetting = false;
+                lock.unlock();
+            }
+        }
+
+        private int enter() {
+            int home = ThreadLocalRandom.current().nextInt(stripes);
+            while (true) {
+                cells.incrementAndGet(running(home));
+                if (!resetting) {
+                    return home;
+                }
+                cells.decrementAndGet(running(home));
+                lock.lock();
+                lock.unlock();
+            }
+        }
+
+        private void exit(int home) {
+            cells.decrementAndGet(running(home));
+        }
+
+        private long running() {
+            long total = 0;
+            for (int stripe = 0; stripe < stripes; stripe++) {
+                total += cells.get(running(stripe));
+            }
+            return total;
+        }
+
+        private boolean take(int home, int quantity) {
+            for (int i = 0; i < stripes; i++) {
+                if (tryTake((home + i) % stripes, quantity)) {
+                    cells.addAndGet(pending(home), quantity);
+                    return true;
+                }
+            }
+
+            long[] taken = new long[stripes];
+            long collected = 0;
+            for (int i = 0; i < stripes && collected < quantity; i++) {
+                int stripe = (home + i) % stripes;
+                taken[stripe] = takeUpTo(stripe, quantity - collected);
+                collected += taken[stripe];
+            }
+            if (collected == quantity) {
+                cells.addAndGet(pending(home), quantity);
+                return true;
+            }
+            for (int stripe = 0; stripe < stripes; stripe++) {
+                if (taken[stripe] > 0) {
+                    cells.addAndGet(available(stripe), taken[stripe]);
+                }
+            }
+            return false;
+        }
+
+        private long drainPending() {
+            long total = 0;
+            for (int stripe = 0; stripe < stripes; stripe++) {
+                total += cells.getAndSet(pending(stripe), 0);
+            }
+            return total;
+        }
+
+        private void addPending(long quantity) {
+            cells.addAndGet(pending(0), quantity);
+        }
+
+        private boolean tryTake(int stripe, long quantity) {
+            int index = available(stripe);
+            long current;
+            do {
+                current = cells.get(index);
+                if (current < quantity) {
+                    return false;
+                }
+            } while (!cells.compareAndSet(index, current, current - quantity));
+            return true;
+        }
+
+        private long takeUpTo(int stripe, long wanted) {
+            int index = available(stripe);
+            while (true) {
+                long current = cells.get(index);
+                if (current <= 0) {
+                    return 0;
+                }
+                long take = Math.min(current, wanted);
+                if (cells.compareAndSet(index, current, current - take)) {
+                    return take;
+                }
+            }
+        }
+
+        private static int available(int stripe) {
+            return stripe * SLOTS_PER_STRIPE;
+        }
+
+        private static int pending(int stripe) {
+            return stripe * SLOTS_PER_STRIPE + 1;
+        }
+
+        private static int running(int stripe) {
+            return stripe * SLOTS_PER_STRIPE + 2;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package bookstore.inventory;
+
+import bookstore.dto.LowStockAlert;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fans low-stock alerts out to Server-Sent Events subscribers. Sends happen on a dedicated thread so a slow
+ * client never holds up the order that triggered the alert; if that thread falls behind, alerts are dropped
+ * and clients can catch up from the paginated low-stock endpoint.
+ */
+@Component
+public class LowStockAlertStream {
+
+    private final CopyOnWriteArrayList<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+    private final ThreadPoolExecutor dispatcher;
+    private final int maxSubscribers;
+    private final long timeoutMillis;
+
+    @Autowired
+    public LowStockAlertStream(@Value("${bookstore.inventory.alerts.max-subscribers:100}") int maxSubscribers,
+                               @Value("${bookstore.inventory.alerts.timeout:PT30M}") Duration timeout) {
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMillis = timeout.toMillis();
+        this.dispatcher = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1000),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "low-stock-alerts");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    public SseEmitter subscribe() {
+        if (emitters.size() >= maxSubscribers) {
+            throw new IllegalStateException("Too many low-stock subscribers.");
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(error -> emitters.remove(emitter));
+        emitters.add(emitter);
+        return emitter;
+    }
+
+    @EventListener
+    public void onLowStock(LowStockAlert alert) {
+        if (!emitters.isEmpty()) {
+            dispatcher.execute(() -> broadcast(alert));
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        dispatcher.shutdownNow();
+        emitters.forEach(SseEmitter::complete);
+    }
+
+    private void broadcast(LowStockAlert alert) {
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(SseEmitter.event().name("low-stock").data(alert));
+            } catch (IOException | IllegalStateException e) {
+                emitters.remove(emitter);
+                emitter.completeWithError(e);
+            }
+        }
+    }
+}
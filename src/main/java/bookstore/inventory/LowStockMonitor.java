@@ -0,0 +1,103 @@
+package bookstore.inventory;
+
+import bookstore.dto.LowStockAlert;
+import bookstore.repository.BookRepository;
+import bookstore.repository.StockLevel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks which books are below their reorder level.
+ * <p>
+ * The set is seeded with one query at startup and afterwards updated from the stock-changing paths in
+ * {@code BookService}, each of which reports the book's new quantity. A {@link LowStockAlert} is published
+ * only when a book enters the set, i.e. when its stock crosses the threshold, and only after the change has
+ * committed.
+ */
+@Component
+public class LowStockMonitor {
+
+    private final BookRepository bookRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int defaultReorderLevel;
+    private final ConcurrentHashMap<Long, LowStockAlert> lowStock = new ConcurrentHashMap<>();
+
+    @Autowired
+    public LowStockMonitor(BookRepository bookRepository, ApplicationEventPublisher eventPublisher,
+                           @Value("${bookstore.inventory.default-reorder-level:5}") int defaultReorderLevel) {
+        this.bookRepository = bookRepository;
+        this.eventPublisher = eventPublisher;
+        this.defaultReorderLevel = defaultReorderLevel;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        Instant now = Instant.now();
+        for (StockLevel stockLevel : bookRepository.findBelowReorderLevel(defaultReorderLevel)) {
+            lowStock.put(stockLevel.getId(), new LowStockAlert(stockLevel.getId(),
+                    stockLevel.getQuantity() == null ? 0 : stockLevel.getQuantity(),
+                    reorderLevel(stockLevel.getReorderLevel()), now));
+        }
+    }
+
+    /**
+     * Records a book's quantity after a stock change.
+     */
+    public void record(Long bookId, int quantity, Integer reorderLevel) {
+        int level = reorderLevel(reorderLevel);
+        if (quantity >= level) {
+            afterCommit(() -> lowStock.remove(bookId));
+            return;
+        }
+        LowStockAlert alert = new LowStockAlert(bookId, quantity, level, Instant.now());
+        afterCommit(() -> {
+            LowStockAlert previous = lowStock.put(bookId, alert);
+            if (previous == null) {
+                eventPublisher.publishEvent(alert);
+            }
+        });
+    }
+
+    public void forget(Long bookId) {
+        afterCommit(() -> lowStock.remove(bookId));
+    }
+
+    public int reorderLevel(Integer reorderLevel) {
+        return reorderLevel == null ? defaultReorderLevel : reorderLevel;
+    }
+
+    /**
+     * Returns one page of the books currently below their reorder level, lowest stock first.
+     */
+    public List<LowStockAlert> getLowStock(int page, int size) {
+        return lowStock.values().stream()
+                .sorted(Comparator.comparingInt(LowStockAlert::getQuantity).thenComparing(LowStockAlert::getBookId))
+                .skip((long) page * size)
+                .limit(size)
+                .toList();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package bookstore.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class LogSampler {
+
+    private final int rate;
+    private final AtomicLong counter = new AtomicLong();
+
+    public LogSampler(int rate) {
+        if (rate <= 0) {
+            throw new IllegalArgumentException("Sampling rate must be positive.");
+        }
+        this.rate = rate;
+    }
+
+    public boolean sample() {
+        return counter.getAndIncrement() % rate == 0;
+    }
+}
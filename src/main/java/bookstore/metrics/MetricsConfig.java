@@ -0,0 +1,57 @@
+package bookstore.metrics;
+
+import bookstore.cache.BookCache;
+import bookstore.cache.CacheStats;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.function.ToDoubleFunction;
+
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public QueryCountInspector queryCountInspector() {
+        return new QueryCountInspector();
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer queryCountHibernateCustomizer(QueryCountInspector queryCountInspector) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, queryCountInspector);
+    }
+
+    @Bean
+    public FilterRegistrationBean<QueryCountFilter> queryCountFilter(MeterRegistry meterRegistry,
+                                                                     @Value("${bookstore.metrics.query-warn-threshold:20}") int warnThreshold) {
+        FilterRegistrationBean<QueryCountFilter> registration = new FilterRegistrationBean<>(new QueryCountFilter(meterRegistry, warnThreshold));
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+
+    @Bean
+    public MeterBinder bookCacheMetrics(BookCache bookCache) {
+        return registry -> bookCache.stats().keySet().forEach(name -> {
+            registerCounter(registry, "bookstore.cache.hits", name, bookCache, CacheStats::getHits);
+            registerCounter(registry, "bookstore.cache.misses", name, bookCache, CacheStats::getMisses);
+            registerCounter(registry, "bookstore.cache.evictions", name, bookCache, CacheStats::getEvictions);
+            Gauge.builder("bookstore.cache.size", bookCache, cache -> cache.stats().get(name).getSize())
+                    .tag("cache", name)
+                    .register(registry);
+        });
+    }
+
+    private static void registerCounter(MeterRegistry registry, String meterName, String cacheName, BookCache bookCache,
+                                        ToDoubleFunction<CacheStats> value) {
+        FunctionCounter.builder(meterName, bookCache, cache -> value.applyAsDouble(cache.stats().get(cacheName)))
+                .tag("cache", cacheName)
+                .register(registry);
+    }
+}
@@ -0,0 +1,27 @@
+package bookstore.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+public class QueryCountInspector implements StatementInspector {
+
+    private static final ThreadLocal<int[]> QUERY_COUNT = new ThreadLocal<>();
+
+    public static void start() {
+        QUERY_COUNT.set(new int[1]);
+    }
+
+    public static int stop() {
+        int[] count = QUERY_COUNT.get();
+        QUERY_COUNT.remove();
+        return count == null ? 0 : count[0];
+    }
+
+    @Override
+    public String inspect(String sql) {
+        int[] count = QUERY_COUNT.get();
+        if (count != null) {
+            count[0]++;
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,68 @@
+package bookstore.reactive;
+
+import bookstore.entity.Book;
+import bookstore.inventory.InventoryEngine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/api/reactive/books")
+@ConditionalOnProperty(name = "bookstore.reactive.enabled", havingValue = "true")
+public class ReactiveBookController {
+
+    private final ReactiveBookRepository reactiveBookRepository;
+    private final InventoryEngine inventoryEngine;
+
+    @Autowired
+    public ReactiveBookController(ReactiveBookRepository reactiveBookRepository, InventoryEngine inventoryEngine) {
+        this.reactiveBookRepository = reactiveBookRepository;
+        this.inventoryEngine = inventoryEngine;
+    }
+
+    @GetMapping(produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<Book> getAllBooks(@RequestParam(defaultValue = "0") Long after,
+                                  @RequestParam(required = false) Integer limit) {
+        Flux<Book> books = reactiveBookRepository.findAfter(after).map(this::withLiveQuantity);
+        return limit == null ? books : books.take(Math.max(limit, 0), true);
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<Book>> getBookById(@PathVariable Long id) {
+        return reactiveBookRepository.findById(id)
+                .map(this::withLiveQuantity)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+    }
+
+    @GetMapping("/isbn/{isbn}")
+    public Mono<ResponseEntity<Book>> getBookByIsbn(@PathVariable String isbn) {
+        return reactiveBookRepository.findByIsbn(isbn)
+                .map(this::withLiveQuantity)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+    }
+
+    @GetMapping(value = "/author/{author}", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<Book> getBooksByAuthor(@PathVariable String author) {
+        return reactiveBookRepository.findByAuthor(author).map(this::withLiveQuantity);
+    }
+
+    // Hot books keep their stock in memory and write it behind, so the row alone can be stale.
+    private Book withLiveQuantity(Book book) {
+        Integer available = inventoryEngine.getAvailable(book.getId());
+        if (available != null) {
+            book.setQuantity(available);
+        }
+        return book;
+    }
+}
@@ -0,0 +1,66 @@
+package bookstore.reactive;
+
+import bookstore.entity.Book;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository
+@ConditionalOnProperty(name = "bookstore.reactive.enabled", havingValue = "true")
+public class ReactiveBookRepository {
+
+    private static final String SELECT_BOOK = "SELECT id, title, author, isbn, price, quantity, description, reorder_level FROM book";
+
+    private final DatabaseClient databaseClient;
+
+    @Autowired
+    public ReactiveBookRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Mono<Book> findById(Long id) {
+        return databaseClient.sql(SELECT_BOOK + " WHERE id = :id")
+                .bind("id", id)
+                .map(ReactiveBookRepository::toBook)
+                .one();
+    }
+
+    public Mono<Book> findByIsbn(String isbn) {
+        return databaseClient.sql(SELECT_BOOK + " WHERE isbn = :isbn")
+                .bind("isbn", isbn)
+                .map(ReactiveBookRepository::toBook)
+                .one();
+    }
+
+    public Flux<Book> findByAuthor(String author) {
+        return databaseClient.sql(SELECT_BOOK + " WHERE author = :author ORDER BY id")
+                .bind("author", author)
+                .map(ReactiveBookRepository::toBook)
+                .all();
+    }
+
+    public Flux<Book> findAfter(Long after) {
+        return databaseClient.sql(SELECT_BOOK + " WHERE id > :after ORDER BY id")
+                .bind("after", after)
+                .map(ReactiveBookRepository::toBook)
+                .all();
+    }
+
+    private static Book toBook(Row row, RowMetadata metadata) {
+        Book book = new Book(
+                row.get("id", Long.class),
+                row.get("title", String.class),
+                row.get("author", String.class),
+                row.get("isbn", String.class),
+                row.get("price", Double.class),
+                row.get("quantity", Integer.class),
+                row.get("description", String.class));
+        book.setReorderLevel(row.get("reorder_level", Integer.class));
+        return book;
+    }
+}
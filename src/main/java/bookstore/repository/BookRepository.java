@@ -1,19 +1,84 @@
 package bookstore.repository;
 
+import bookstore.dto.BookVersion;
 import bookstore.entity.Book;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface BookRepository extends JpaRepository<Book, Long> {
     Optional<Book> findByIsbn(String isbn);
 
+    List<Book> findByIsbnIn(Collection<String> isbns);
+
     List<Book> findByAuthor(String author);
 
     List<Book> findByPriceGreaterThan(Double price);
 
     List<Book> findByQuantityLessThan(Integer quantity);
+
+    List<Book> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    // Projected variants: with BookSummary only the summary columns are selected, leaving description unread.
+    <T> List<T> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable, Class<T> type);
+
+    <T> List<T> findByAuthor(String author, Class<T> type);
+
+    <T> List<T> findByPriceGreaterThan(Double price, Class<T> type);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT b FROM Book b ORDER BY b.id")
+    Stream<Book> streamAllBy();
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "5000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT b.isbn FROM Book b")
+    Stream<String> streamAllIsbns();
+
+    @Query("SELECT b.isbn FROM Book b WHERE b.isbn IN :isbns")
+    List<String> findExistingIsbns(@Param("isbns") Collection<String> isbns);
+
+    @Query("SELECT b.id AS id, b.quantity AS quantity, b.reorderLevel AS reorderLevel FROM Book b WHERE b.id IN :ids")
+    List<StockLevel> findStockLevelsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT b.id AS id, b.quantity AS quantity, b.reorderLevel AS reorderLevel FROM Book b WHERE b.id = :id")
+    Optional<StockLevel> findStockLevelById(@Param("id") Long id);
+
+    @Query("SELECT b.id AS id, b.quantity AS quantity, b.reorderLevel AS reorderLevel FROM Book b "
+            + "WHERE b.quantity < COALESCE(b.reorderLevel, :defaultLevel)")
+    List<StockLevel> findBelowReorderLevel(@Param("defaultLevel") int defaultLevel);
+
+    @Query("SELECT new bookstore.dto.BookVersion(b.id, b.version, b.quantity, b.lastModified) FROM Book b WHERE b.id = :id")
+    Optional<BookVersion> findVersionById(@Param("id") Long id);
+
+    @Query("SELECT new bookstore.dto.BookVersion(b.id, b.version, b.quantity, b.lastModified) FROM Book b WHERE b.isbn = :isbn")
+    Optional<BookVersion> findVersionByIsbn(@Param("isbn") String isbn);
+
+    @Modifying
+    @Query("UPDATE Book b SET b.quantity = b.quantity - :quantity, b.version = b.version + 1, b.lastModified = :now "
+            + "WHERE b.id = :id AND b.quantity >= :quantity")
+    int decrementQuantity(@Param("id") Long id, @Param("quantity") Integer quantity, @Param("now") Instant now);
+
+    // Write-behind for hot books: the version is left alone because their ETag already tracks the live counter.
+    @Modifying
+    @Query("UPDATE Book b SET b.quantity = b.quantity - :quantity WHERE b.id = :id")
+    int applyReservedQuantity(@Param("id") Long id, @Param("quantity") Integer quantity);
 }
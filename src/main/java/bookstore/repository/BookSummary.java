@@ -0,0 +1,26 @@
+package bookstore.repository;
+
+import java.time.Instant;
+
+/**
+ * Every book column except {@code description}, for list views that do not ask for it.
+ */
+public interface BookSummary {
+    Long getId();
+
+    String getTitle();
+
+    String getAuthor();
+
+    String getIsbn();
+
+    Double getPrice();
+
+    Integer getQuantity();
+
+    Integer getReorderLevel();
+
+    Long getVersion();
+
+    Instant getLastModified();
+}
@@ -0,0 +1,15 @@
+package bookstore.repository;
+
+import java.time.LocalDate;
+
+public interface DailyBookSales {
+    Long getBookId();
+
+    String getAuthor();
+
+    Double getRevenue();
+
+    LocalDate getDay();
+
+    Long getUnits();
+}
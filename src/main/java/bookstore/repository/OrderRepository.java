@@ -1,14 +1,43 @@
 package bookstore.repository;
 
+import bookstore.dto.OrderHistoryItem;
 import bookstore.entity.Order;
+import bookstore.entity.OrderStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
 
     List<Order> findByCustomerId(Long customerId);
+
+    List<Order> findByStatusOrderByOrderDateAscIdAsc(OrderStatus status, Pageable pageable);
+
+    @Query("SELECT o.bookId AS bookId, b.author AS author, "
+            + "sum(o.quantity * coalesce(o.unitPrice, b.price)) AS revenue, "
+            + "cast(o.orderDate as LocalDate) AS day, sum(o.quantity) AS units "
+            + "FROM Order o LEFT JOIN Book b ON b.id = o.bookId "
+            + "WHERE o.orderDate >= :since AND o.status <> :excluded "
+            + "GROUP BY o.bookId, b.author, cast(o.orderDate as LocalDate)")
+    List<DailyBookSales> summarizeSalesSince(@Param("since") LocalDateTime since, @Param("excluded") OrderStatus excluded);
+
+    @Query("SELECT new bookstore.dto.OrderHistoryItem(o.id, o.bookId, b.title, o.quantity, o.status, o.orderDate) "
+            + "FROM Order o LEFT JOIN Book b ON b.id = o.bookId "
+            + "WHERE o.customerId = :customerId AND o.orderDate >= :from AND o.orderDate < :to "
+            + "ORDER BY o.orderDate DESC, o.id DESC")
+    List<OrderHistoryItem> findHistory(@Param("customerId") Long customerId,
+                                       @Param("from") LocalDateTime from,
+                                       @Param("to") LocalDateTime to,
+                                       Pageable pageable);
+
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Order o SET o.status = :status WHERE o.id = :id AND o.status = :expected")
+    int updateStatus(@Param("id") Long id, @Param("expected") OrderStatus expected, @Param("status") OrderStatus status);
 }
@@ -0,0 +1,9 @@
+package bookstore.repository;
+
+public interface StockLevel {
+    Long getId();
+
+    Integer getQuantity();
+
+    Integer getReorderLevel();
+}
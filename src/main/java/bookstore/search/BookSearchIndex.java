@@ -0,0 +1,186 @@
+package bookstore.search;
+
+import bookstore.entity.Book;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+@Component
+public class BookSearchIndex {
+
+    private static final int TITLE_WEIGHT = 3;
+    private static final int AUTHOR_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final double PREFIX_BOOST = 0.5;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    private final Map<Long, String[]> termsByBook = new HashMap<>();
+
+    public void index(Book book) {
+        Map<String, Integer> terms = new HashMap<>();
+        addTerms(terms, book.getTitle(), TITLE_WEIGHT);
+        addTerms(terms, book.getAuthor(), AUTHOR_WEIGHT);
+        addTerms(terms, book.getDescription(), DESCRIPTION_WEIGHT);
+
+        lock.writeLock().lock();
+        try {
+            removePostings(book.getId());
+            terms.forEach((term, weight) -> postings.computeIfAbsent(term, key -> new HashMap<>()).put(book.getId(), weight));
+            termsByBook.put(book.getId(), terms.keySet().toArray(new String[0]));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long bookId) {
+        lock.writeLock().lock();
+        try {
+            removePostings(bookId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return termsByBook.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Hits search(String query, int offset, int limit) {
+        Set<String> tokens = new LinkedHashSet<>(tokenize(query));
+        if (tokens.isEmpty()) {
+            return new Hits(Collections.emptyList(), 0);
+        }
+
+        Map<Long, Double> scores = null;
+        boolean exact = true;
+        lock.readLock().lock();
+        try {
+            int documentCount = termsByBook.size();
+            for (String token : tokens) {
+                Map<Long, Double> tokenScores = new HashMap<>();
+                List<Map.Entry<String, Map<Long, Integer>>> expansions =
+                        new ArrayList<>(postings.subMap(token, true, token + Character.MAX_VALUE, true).entrySet());
+                if (expansions.size() > MAX_PREFIX_EXPANSIONS) {
+                    // Keep the terms that match the most books, so a short prefix drops as few hits as possible.
+                    expansions.sort(Comparator.comparing((Map.Entry<String, Map<Long, Integer>> entry) -> !entry.getKey().equals(token))
+                            .thenComparing(entry -> entry.getValue().size(), Comparator.reverseOrder()));
+                    expansions = expansions.subList(0, MAX_PREFIX_EXPANSIONS);
+                    exact = false;
+                }
+                for (Map.Entry<String, Map<Long, Integer>> entry : expansions) {
+                    double idf = Math.log(1.0 + (double) documentCount / entry.getValue().size());
+                    double boost = entry.getKey().equals(token) ? 1.0 : PREFIX_BOOST;
+                    entry.getValue().forEach((bookId, weight) -> tokenScores.merge(bookId, weight * idf * boost, Math::max));
+                }
+
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    scores.keySet().retainAll(tokenScores.keySet());
+                    scores.replaceAll((bookId, score) -> score + tokenScores.get(bookId));
+                }
+                if (scores.isEmpty()) {
+                    break;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Map.Entry<Long, Double>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort(Map.Entry.<Long, Double>comparingByValue(Comparator.reverseOrder())
+                .thenComparing(Map.Entry.comparingByKey()));
+        List<Long> bookIds = ranked.stream()
+                .skip(offset)
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+        return new Hits(bookIds, ranked.size(), exact);
+    }
+
+    private void removePostings(Long bookId) {
+        String[] terms = termsByBook.remove(bookId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Map<Long, Integer> books = postings.get(term);
+            if (books != null) {
+                books.remove(bookId);
+                if (books.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    private static void addTerms(Map<String, Integer> terms, String text, int weight) {
+        for (String token : tokenize(text)) {
+            terms.merge(token, weight, Integer::sum);
+        }
+    }
+
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * A page of ranked book ids. When a query prefix expanded to more than {@value #MAX_PREFIX_EXPANSIONS} terms,
+     * only the broadest of them were searched: the hits are then not exact and the total is a lower bound.
+     */
+    public static class Hits {
+        private final List<Long> bookIds;
+        private final int total;
+        private final boolean exact;
+
+        public Hits(List<Long> bookIds, int total) {
+            this(bookIds, total, true);
+        }
+
+        public Hits(List<Long> bookIds, int total, boolean exact) {
+            this.bookIds = bookIds;
+            this.total = total;
+            this.exact = exact;
+        }
+
+        public List<Long> getBookIds() {
+            return bookIds;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public boolean isExact() {
+            return exact;
+        }
+    }
+}
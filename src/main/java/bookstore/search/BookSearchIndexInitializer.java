@@ -0,0 +1,28 @@
+package bookstore.search;
+
+import bookstore.service.BookService;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Seeds the search index once all singletons exist and before the web server starts, so the bulk load never
+ * races the {@link BookSearchIndex#index} calls that live writes make.
+ */
+@Component
+public class BookSearchIndexInitializer implements SmartInitializingSingleton {
+
+    private final BookService bookService;
+    private final BookSearchIndex bookSearchIndex;
+
+    @Autowired
+    public BookSearchIndexInitializer(BookService bookService, BookSearchIndex bookSearchIndex) {
+        this.bookService = bookService;
+        this.bookSearchIndex = bookSearchIndex;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        bookService.streamBooks(bookSearchIndex::index);
+    }
+}
@@ -0,0 +1,66 @@
+package bookstore.serialization;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufMapper;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads and writes single entities as Protocol Buffers messages. The schema, reader and writer for each type
+ * are generated once at construction and reused for every request. The types are fixed by configuration, so a
+ * type whose schema cannot be generated fails startup instead of turning into a 406 at request time.
+ */
+public class ProtobufMessageConverter extends AbstractHttpMessageConverter<Object> {
+
+    public static final MediaType APPLICATION_PROTOBUF = MediaType.parseMediaType("application/x-protobuf");
+
+    private final Map<Class<?>, ObjectReader> readers = new HashMap<>();
+    private final Map<Class<?>, ObjectWriter> writers = new HashMap<>();
+
+    public ProtobufMessageConverter(Class<?>... types) {
+        super(APPLICATION_PROTOBUF, MediaType.parseMediaType("application/protobuf"));
+        ProtobufMapper mapper = new ProtobufMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        for (Class<?> type : types) {
+            try {
+                ProtobufSchema schema = mapper.generateSchemaFor(type);
+                readers.put(type, mapper.readerFor(type).with(schema));
+                writers.put(type, mapper.writerFor(type).with(schema));
+            } catch (JsonMappingException e) {
+                throw new IllegalStateException("Cannot generate a protobuf schema for " + type.getName(), e);
+            }
+        }
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return writers.containsKey(clazz);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        try {
+            return readers.get(clazz).readValue(inputMessage.getBody());
+        } catch (IOException e) {
+            throw new HttpMessageNotReadableException("Malformed protobuf message: " + e.getMessage(), e, inputMessage);
+        }
+    }
+
+    @Override
+    protected void writeInternal(Object value, HttpOutputMessage outputMessage) throws IOException {
+        writers.get(value.getClass()).writeValue(outputMessage.getBody(), value);
+    }
+}
@@ -0,0 +1,45 @@
+package bookstore.serialization;
+
+import bookstore.entity.Book;
+import bookstore.entity.Order;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Binary representations for node-to-node catalog traffic, selected by the {@code Accept} header:
+ * CBOR and Smile for any response, Protobuf for single books and orders. The CBOR and Smile mappers are
+ * built from Boot's {@link Jackson2ObjectMapperBuilder}, so they share the JSON mapper's modules and settings.
+ */
+@Configuration
+public class SerializationConfig {
+
+    /**
+     * Replaces reflective property access with generated accessors, for JSON and the binary formats alike.
+     */
+    @Bean
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    @Bean
+    public ProtobufMessageConverter protobufMessageConverter() {
+        return new ProtobufMessageConverter(Book.class, Order.class);
+    }
+}
@@ -1,44 +1,215 @@
 package bookstore.service;
 
+import bookstore.cache.BookCache;
+import bookstore.cache.CacheStats;
+import bookstore.cache.IsbnBloomFilter;
+import bookstore.changes.BookChangeStream;
+import bookstore.dto.BookChange;
+import bookstore.dto.BookFields;
+import bookstore.dto.BookLookup;
+import bookstore.dto.BookVersion;
+import bookstore.dto.CursorPage;
+import bookstore.dto.LowStockAlert;
+import bookstore.dto.SearchResults;
 import bookstore.repository.BookRepository;
 import bookstore.entity.Book;
+import bookstore.inventory.InventoryEngine;
+import bookstore.inventory.LowStockMonitor;
+import bookstore.metrics.LogSampler;
+import bookstore.repository.BookSummary;
+import bookstore.repository.StockLevel;
+import bookstore.search.BookSearchIndex;
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @Service
 public class BookService {
+    public static final int MAX_PAGE_SIZE = 500;
+    public static final int MAX_LOOKUP_KEYS = 500;
+    private static final int MAX_UPDATE_ATTEMPTS = 3;
+
+    private static final Logger log = LoggerFactory.getLogger(BookService.class);
+    private static final LogSampler UPDATE_LOG_SAMPLER = new LogSampler(100);
+
     private final BookRepository bookRepository;
+    private final BookCache bookCache;
+    private final BookSearchIndex bookSearchIndex;
+    private final InventoryEngine inventoryEngine;
+    private final IsbnBloomFilter isbnBloomFilter;
+    private final LowStockMonitor lowStockMonitor;
+    private final BookChangeStream bookChangeStream;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
 
     @Autowired
-    public BookService(BookRepository bookRepository) {
+    public BookService(BookRepository bookRepository, BookCache bookCache, BookSearchIndex bookSearchIndex,
+                       InventoryEngine inventoryEngine, IsbnBloomFilter isbnBloomFilter, LowStockMonitor lowStockMonitor,
+                       BookChangeStream bookChangeStream, EntityManager entityManager,
+                       PlatformTransactionManager transactionManager) {
         this.bookRepository = bookRepository;
+        this.bookCache = bookCache;
+        this.bookSearchIndex = bookSearchIndex;
+        this.inventoryEngine = inventoryEngine;
+        this.isbnBloomFilter = isbnBloomFilter;
+        this.lowStockMonitor = lowStockMonitor;
+        this.bookChangeStream = bookChangeStream;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     public Book addBook(Book book) {
-        if (bookRepository.findByIsbn(book.getIsbn()).isPresent()) {
-            throw new IllegalArgumentException("Book with this ISBN already exists.");
+        if (book.getIsbn() != null) {
+            // Set before the insert so a concurrent lookup never sees a committed book as absent.
+            isbnBloomFilter.put(book.getIsbn());
+        }
+        try {
+            Book savedBook = bookRepository.saveAndFlush(book);
+            bookSearchIndex.index(savedBook);
+            lowStockMonitor.record(savedBook.getId(), quantityOf(savedBook), savedBook.getReorderLevel());
+            bookChangeStream.publish(BookChange.Type.CREATED, savedBook.getId(), savedBook.getQuantity(), savedBook.getPrice());
+            return savedBook;
+        } catch (DataIntegrityViolationException e) {
+            // Only a stored ISBN makes this a duplicate; any other violation is the caller's bad data.
+            if (book.getIsbn() != null && !bookRepository.findExistingIsbns(List.of(book.getIsbn())).isEmpty()) {
+                throw new IllegalArgumentException("Book with this ISBN already exists.", e);
+            }
+            throw e;
+        }
+    }
+
+    public CursorPage<Book> getBooksPage(Long after, int limit) {
+        int pageSize = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        List<Book> books = bookRepository.findByIdGreaterThanOrderByIdAsc(after == null ? 0L : after, PageRequest.of(0, pageSize));
+        Long nextCursor = books.size() == pageSize ? books.get(books.size() - 1).getId() : null;
+        return new CursorPage<>(books.stream().map(book -> withLiveQuantity(book.copy())).toList(), nextCursor);
+    }
+
+    /**
+     * Returns a page with only the requested fields. Unless the description is among them, the page is read
+     * through the {@link BookSummary} projection and the description column is never selected.
+     */
+    public CursorPage<Map<String, Object>> getBooksPage(Long after, int limit, BookFields fields) {
+        if (fields.includesDescription()) {
+            CursorPage<Book> page = getBooksPage(after, limit);
+            return new CursorPage<>(page.getItems().stream().map(fields::select).toList(), page.getNextCursor());
+        }
+        int pageSize = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        List<BookSummary> books = bookRepository.findByIdGreaterThanOrderByIdAsc(after == null ? 0L : after,
+                PageRequest.of(0, pageSize), BookSummary.class);
+        Long nextCursor = books.size() == pageSize ? books.get(books.size() - 1).getId() : null;
+        return new CursorPage<>(books.stream().map(book -> withLiveQuantity(book.getId(), fields.select(book))).toList(), nextCursor);
+    }
+
+    public SearchResults searchBooks(String query, int page, int size) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        int pageNumber = Math.max(page, 0);
+        // A page far past the end must not overflow into a negative offset; clamping just yields an empty page.
+        int offset = (int) Math.min((long) pageNumber * pageSize, Integer.MAX_VALUE);
+        BookSearchIndex.Hits hits = bookSearchIndex.search(query, offset, pageSize);
+        Map<Long, Book> booksById = hits.getBookIds().isEmpty() ? Map.of() : bookCache.findAllById(hits.getBookIds());
+        List<Book> books = hits.getBookIds().stream()
+                .map(booksById::get)
+                .filter(Objects::nonNull)
+                .map(this::withLiveQuantity)
+                .toList();
+        return new SearchResults(books, hits.getTotal(), hits.isExact(), pageNumber, pageSize);
+    }
+
+    @Transactional(readOnly = true)
+    public void streamBooks(Consumer<Book> consumer) {
+        try (Stream<Book> books = bookRepository.streamAllBy()) {
+            books.forEach(book -> {
+                // Detached first, so overlaying the live counter cannot dirty the managed row.
+                entityManager.detach(book);
+                consumer.accept(withLiveQuantity(book));
+            });
         }
-        return bookRepository.save(book);
     }
 
-    public List<Book> getAllBooks() {
-        return bookRepository.findAll();
+    @Transactional(readOnly = true)
+    public void streamIsbns(Consumer<String> consumer) {
+        try (Stream<String> isbns = bookRepository.streamAllIsbns()) {
+            isbns.filter(Objects::nonNull).forEach(consumer);
+        }
     }
 
     public Book getBookById(Long id) {
-        return bookRepository.findById(id)
+        return bookCache.findById(id)
+                .map(this::withLiveQuantity)
                 .orElseThrow(() -> new NoSuchElementException("Book with ID " + id + " not found."));
     }
 
+    public Optional<BookVersion> getBookVersion(Long id) {
+        Optional<BookVersion> version = bookCache.peek(id).map(BookVersion::of);
+        if (version.isEmpty()) {
+            version = bookRepository.findVersionById(id);
+        }
+        return version.map(this::withLiveQuantity);
+    }
+
+    public Optional<BookVersion> getBookVersionByIsbn(String isbn) {
+        if (!isbnBloomFilter.mightContain(isbn)) {
+            return Optional.empty();
+        }
+        Optional<BookVersion> version = bookCache.peekByIsbn(isbn).map(BookVersion::of);
+        if (version.isEmpty()) {
+            version = bookRepository.findVersionByIsbn(isbn);
+        }
+        return version.map(this::withLiveQuantity);
+    }
+
     public Book updateBook(Long id, Book updatedBook) {
-        Book book = bookRepository.findById(id).orElseThrow(() -> new NoSuchElementException("Book with ID " + id + " not found."));
+        return updateBook(id, updatedBook, null);
+    }
+
+    /**
+     * Replaces a book's editable fields. With {@code If-Match} a concurrent change fails the update with
+     * {@link OptimisticLockingFailureException}; without one the update is retried on the fresh row and only
+     * gives up with {@link ConcurrencyFailureException} if the book keeps changing underneath it.
+     */
+    public Book updateBook(Long id, Book updatedBook, String ifMatch) {
+        boolean hot = inventoryEngine.isHot(id);
+        return withUpdateRetry(id, ifMatch, hot, () -> applyUpdate(loadForUpdate(id, ifMatch), updatedBook, hot));
+    }
+
+    private Book applyUpdate(Book book, Book updatedBook, boolean hot) {
+        Long id = book.getId();
 
-        System.out.println("Original ISBN: " + book.getIsbn());
-        System.out.println("Updated ISBN: " + updatedBook.getIsbn());
+        if (log.isDebugEnabled() && UPDATE_LOG_SAMPLER.sample()) {
+            log.atDebug()
+                    .addKeyValue("bookId", id)
+                    .addKeyValue("originalIsbn", book.getIsbn())
+                    .addKeyValue("updatedIsbn", updatedBook.getIsbn())
+                    .log("Updating book");
+        }
 
         if (!book.getIsbn().equals(updatedBook.getIsbn())) {
             throw new IllegalArgumentException("ISBN cannot be changed");
@@ -49,7 +220,115 @@ public class BookService {
         book.setPrice(updatedBook.getPrice());
         book.setQuantity(updatedBook.getQuantity());
         book.setDescription(updatedBook.getDescription());
-        return bookRepository.save(book);
+        book.setReorderLevel(updatedBook.getReorderLevel());
+        return saveUpdate(book, hot);
+    }
+
+    /**
+     * Applies a partial JSON document to a book. Only the fields present in the patch are touched, and
+     * Book's dynamic update means only the columns that actually changed end up in the UPDATE statement.
+     * Hot-book counters are flushed and reset only when the patch sets the quantity. Concurrent changes are
+     * handled as in {@link #updateBook(Long, Book, String)}.
+     */
+    public Book patchBook(Long id, JsonNode patch, String ifMatch) {
+        if (patch == null || !patch.isObject()) {
+            throw new IllegalArgumentException("Patch must be a JSON object.");
+        }
+        boolean stockChange = patch.has("quantity") && inventoryEngine.isHot(id);
+        Book savedBook = withUpdateRetry(id, ifMatch, stockChange, () -> applyPatch(loadForUpdate(id, ifMatch), patch, stockChange));
+        // Overlay the live counter on a copy, so the managed entity is never dirtied with it.
+        return stockChange ? savedBook : withLiveQuantity(savedBook.copy());
+    }
+
+    private Book applyPatch(Book book, JsonNode patch, boolean stockChange) {
+
+        Iterator<Map.Entry<String, JsonNode>> fields = patch.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            JsonNode value = field.getValue();
+            switch (field.getKey()) {
+                case "title" -> book.setTitle(textValue("title", value));
+                case "author" -> book.setAuthor(textValue("author", value));
+                case "description" -> book.setDescription(textValue("description", value));
+                case "price" -> {
+                    if (!value.isNumber()) {
+                        throw new IllegalArgumentException("price must be a number.");
+                    }
+                    book.setPrice(value.doubleValue());
+                }
+                case "quantity" -> {
+                    if (!value.isIntegralNumber() || !value.canConvertToInt()) {
+                        throw new IllegalArgumentException("quantity must be an integer.");
+                    }
+                    book.setQuantity(value.intValue());
+                }
+                case "reorderLevel" -> {
+                    if (!value.isNull() && (!value.isIntegralNumber() || !value.canConvertToInt() || value.intValue() < 0)) {
+                        throw new IllegalArgumentException("reorderLevel must be a non-negative integer.");
+                    }
+                    book.setReorderLevel(value.isNull() ? null : value.intValue());
+                }
+                case "isbn" -> {
+                    if (!book.getIsbn().equals(value.asText())) {
+                        throw new IllegalArgumentException("ISBN cannot be changed");
+                    }
+                }
+                case "id", "version", "lastModified" -> {
+                    // Server-managed, ignored like on PUT.
+                }
+                default -> throw new IllegalArgumentException("Unknown field: " + field.getKey());
+            }
+        }
+        return saveUpdate(book, stockChange);
+    }
+
+    // Each attempt is its own transaction, so the version check and the write commit or fail together. Hot
+    // counters are flushed before the transaction starts and write-behind is held off until it ends, so a
+    // rolled-back attempt cannot lose write-behind stock and a committed one is not undercut by it.
+    private Book withUpdateRetry(Long id, String ifMatch, boolean flushStock, Supplier<Book> update) {
+        Supplier<Book> transaction = () -> transactionTemplate.execute(status -> update.get());
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return flushStock ? inventoryEngine.whileFlushed(id, transaction) : transaction.get();
+            } catch (OptimisticLockingFailureException e) {
+                if (ifMatch != null) {
+                    throw e;
+                }
+                if (attempt >= MAX_UPDATE_ATTEMPTS) {
+                    throw new ConcurrencyFailureException("Book with ID " + id + " kept changing during the update.", e);
+                }
+            }
+        }
+    }
+
+    private Book loadForUpdate(Long id, String ifMatch) {
+        Book book = bookRepository.findById(id).orElseThrow(() -> new NoSuchElementException("Book with ID " + id + " not found."));
+        if (ifMatch != null && !withLiveQuantity(BookVersion.of(book)).matches(ifMatch)) {
+            throw new OptimisticLockingFailureException("Book with ID " + id + " was modified concurrently.");
+        }
+        return book;
+    }
+
+    private Book saveUpdate(Book book, boolean resetStock) {
+        Book savedBook = bookRepository.saveAndFlush(book);
+        if (resetStock) {
+            resetOnCommit(book.getId(), quantityOf(savedBook));
+        }
+        bookCache.evict(book.getId());
+        bookSearchIndex.index(savedBook);
+        // A reset counter only takes the saved quantity once the transaction commits.
+        Integer available = resetStock ? null : inventoryEngine.getAvailable(book.getId());
+        int quantity = available != null ? available : quantityOf(savedBook);
+        lowStockMonitor.record(book.getId(), quantity, savedBook.getReorderLevel());
+        bookChangeStream.publish(BookChange.Type.UPDATED, book.getId(), quantity, savedBook.getPrice());
+        return savedBook;
+    }
+
+    private static String textValue(String field, JsonNode value) {
+        if (!value.isTextual() && !value.isNull()) {
+            throw new IllegalArgumentException(field + " must be a string.");
+        }
+        return value.isNull() ? null : value.textValue();
     }
 
     public void deleteBook(Long id) {
@@ -57,13 +336,193 @@ public class BookService {
             throw new NoSuchElementException("Book with ID " + id + " not found.");
         }
         bookRepository.deleteById(id);
+        inventoryEngine.forget(id);
+        lowStockMonitor.forget(id);
+        bookChangeStream.publish(BookChange.Type.DELETED, id, null, null);
+        bookCache.evict(id);
+        bookSearchIndex.remove(id);
+    }
+
+    @Transactional
+    public void reserveStock(Long bookId, Integer quantity) {
+        if (quantity == null || quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive.");
+        }
+        if (!tryReserveStock(bookId, quantity)) {
+            if (!bookRepository.existsById(bookId)) {
+                throw new NoSuchElementException("Book with ID " + bookId + " not found.");
+            }
+            throw new IllegalArgumentException("Not enough quantity.");
+        }
+    }
+
+    @Transactional
+    public boolean tryReserveStock(Long bookId, Integer quantity) {
+        if (inventoryEngine.isHot(bookId)) {
+            long epoch = inventoryEngine.tryReserve(bookId, quantity);
+            if (epoch == InventoryEngine.NOT_RESERVED) {
+                return false;
+            }
+            releaseOnRollback(bookId, quantity, epoch);
+            Integer available = inventoryEngine.getAvailable(bookId);
+            if (available != null) {
+                lowStockMonitor.record(bookId, available, bookCache.findById(bookId).map(Book::getReorderLevel).orElse(null));
+                bookChangeStream.publish(BookChange.Type.STOCK, bookId, available, null);
+            }
+            return true;
+        }
+        if (bookRepository.decrementQuantity(bookId, quantity, Instant.now()) == 0) {
+            return false;
+        }
+        bookCache.evict(bookId);
+        bookRepository.findStockLevelById(bookId).ifPresent(stockLevel -> {
+            int remaining = stockLevel.getQuantity() == null ? 0 : stockLevel.getQuantity();
+            lowStockMonitor.record(bookId, remaining, stockLevel.getReorderLevel());
+            bookChangeStream.publish(BookChange.Type.STOCK, bookId, remaining, null);
+        });
+        return true;
+    }
+
+    public Map<Long, Integer> getStockLevels(Collection<Long> bookIds) {
+        Map<Long, Integer> stockLevels = new HashMap<>();
+        if (bookIds.isEmpty()) {
+            return stockLevels;
+        }
+        for (StockLevel stockLevel : bookRepository.findStockLevelsByIdIn(bookIds)) {
+            Integer available = inventoryEngine.getAvailable(stockLevel.getId());
+            if (available == null) {
+                available = stockLevel.getQuantity() == null ? 0 : stockLevel.getQuantity();
+            }
+            stockLevels.put(stockLevel.getId(), available);
+        }
+        return stockLevels;
+    }
+
+    public Map<Long, Double> getPrices(Collection<Long> bookIds) {
+        Map<Long, Double> prices = new HashMap<>();
+        if (bookIds.isEmpty()) {
+            return prices;
+        }
+        bookCache.findAllById(bookIds).forEach((id, book) -> {
+            if (book.getPrice() != null) {
+                prices.put(id, book.getPrice());
+            }
+        });
+        return prices;
     }
 
     public Optional<Book> getBookByIsbn(String isbn) {
-        return bookRepository.findByIsbn(isbn);
+        if (!isbnBloomFilter.mightContain(isbn)) {
+            return Optional.empty();
+        }
+        return bookCache.findByIsbn(isbn).map(this::withLiveQuantity);
+    }
+
+    /**
+     * Resolves a batch of ids in request order, from the cache plus at most one query for the misses.
+     */
+    public List<BookLookup> getBooksByIds(List<Long> ids) {
+        checkLookupKeys(ids);
+        Map<Long, Book> books = bookCache.findAllById(new LinkedHashSet<>(ids));
+        books.values().forEach(this::withLiveQuantity);
+        return ids.stream().map(id -> BookLookup.of(String.valueOf(id), books.get(id))).toList();
+    }
+
+    /**
+     * Resolves a batch of ISBNs in request order. ISBNs the Bloom filter rules out never reach the cache
+     * or the database.
+     */
+    public List<BookLookup> getBooksByIsbns(List<String> isbns) {
+        checkLookupKeys(isbns);
+        Set<String> candidates = new LinkedHashSet<>();
+        for (String isbn : isbns) {
+            if (isbnBloomFilter.mightContain(isbn)) {
+                candidates.add(isbn);
+            }
+        }
+        Map<String, Book> books = candidates.isEmpty() ? Map.of() : bookCache.findAllByIsbn(candidates);
+        books.values().forEach(this::withLiveQuantity);
+        return isbns.stream().map(isbn -> BookLookup.of(isbn, books.get(isbn))).toList();
+    }
+
+    public Map<String, CacheStats> getCacheStats() {
+        return bookCache.stats();
     }
 
     public List<Book> getBooksByAuthor(String author) {
-        return bookRepository.findByAuthor(author);
+        return bookRepository.findByAuthor(author).stream().map(book -> withLiveQuantity(book.copy())).toList();
+    }
+
+    public List<Map<String, Object>> getBooksByAuthor(String author, BookFields fields) {
+        if (fields.includesDescription()) {
+            return getBooksByAuthor(author).stream().map(fields::select).toList();
+        }
+        return bookRepository.findByAuthor(author, BookSummary.class).stream()
+                .map(book -> withLiveQuantity(book.getId(), fields.select(book)))
+                .toList();
+    }
+
+    public List<LowStockAlert> getLowStock(int page, int size) {
+        return lowStockMonitor.getLowStock(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE));
+    }
+
+    private static void checkLookupKeys(List<?> keys) {
+        if (keys.isEmpty() || keys.size() > MAX_LOOKUP_KEYS) {
+            throw new IllegalArgumentException("Between 1 and " + MAX_LOOKUP_KEYS + " keys may be looked up at once.");
+        }
+        if (keys.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("Lookup keys must not be null.");
+        }
+    }
+
+    private static int quantityOf(Book book) {
+        return book.getQuantity() == null ? 0 : book.getQuantity();
+    }
+
+    private Book withLiveQuantity(Book book) {
+        Integer available = inventoryEngine.getAvailable(book.getId());
+        if (available != null) {
+            book.setQuantity(available);
+        }
+        return book;
+    }
+
+    private Map<String, Object> withLiveQuantity(Long id, Map<String, Object> selected) {
+        Integer available = selected.containsKey("quantity") ? inventoryEngine.getAvailable(id) : null;
+        if (available != null) {
+            selected.put("quantity", available);
+        }
+        return selected;
+    }
+
+    private BookVersion withLiveQuantity(BookVersion version) {
+        Integer available = inventoryEngine.getAvailable(version.getId());
+        return available == null ? version : version.withQuantity(available);
+    }
+
+    private void resetOnCommit(Long bookId, int quantity) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    inventoryEngine.resetTo(bookId, quantity);
+                }
+            });
+        } else {
+            inventoryEngine.resetTo(bookId, quantity);
+        }
+    }
+
+    private void releaseOnRollback(Long bookId, Integer quantity, long epoch) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        inventoryEngine.release(bookId, quantity, epoch);
+                    }
+                }
+            });
+        }
     }
 }
@@ -1,56 +1,138 @@
 package bookstore.service;
 
-import bookstore.entity.Book;
+import bookstore.analytics.SalesAggregator;
+import bookstore.dto.OrderHistoryItem;
+import bookstore.dto.OrderRequest;
+import bookstore.dto.OrderResult;
 import bookstore.entity.Order;
+import bookstore.entity.OrderStatus;
 import bookstore.repository.OrderRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 
 @Service
 public class OrderService {
 
+    public static final int MAX_PAGE_SIZE = 500;
+
     private final OrderRepository orderRepository;
     private final BookService bookService;
+    private final SalesAggregator salesAggregator;
 
     @Autowired
-    public OrderService(OrderRepository orderRepository, BookService bookService) {
+    public OrderService(OrderRepository orderRepository, BookService bookService, SalesAggregator salesAggregator) {
         this.orderRepository = orderRepository;
         this.bookService = bookService;
+        this.salesAggregator = salesAggregator;
     }
 
+    @Transactional
     public Order createOrder(Long customerId, Long bookId, Integer quantity) {
-        Book book = bookService.getBookById(bookId);
-        if (book == null) {
-            throw new NoSuchElementException("Book with ID " + bookId + " not found.");
-        }
+        bookService.reserveStock(bookId, quantity);
+        Double unitPrice = bookService.getPrices(List.of(bookId)).get(bookId);
+        Order order = orderRepository.save(newOrder(customerId, bookId, quantity, unitPrice, LocalDateTime.now()));
+        salesAggregator.recordPlaced(order);
+        return order;
+    }
 
-        if (book.getQuantity() < quantity) {
-            throw new IllegalArgumentException("Not enough quantity.");
+    @Transactional
+    public List<OrderResult> createOrders(List<OrderRequest> orderRequests) {
+        OrderResult[] results = new OrderResult[orderRequests.size()];
+        Map<Long, List<Integer>> itemsByBook = new LinkedHashMap<>();
+        for (int i = 0; i < orderRequests.size(); i++) {
+            OrderRequest request = orderRequests.get(i);
+            if (request == null || request.getCustomerId() == null || request.getBookId() == null) {
+                results[i] = OrderResult.failure("Customer ID and book ID are required.");
+            } else if (request.getQuantity() <= 0) {
+                results[i] = OrderResult.failure("Quantity must be positive.");
+            } else {
+                itemsByBook.computeIfAbsent(request.getBookId(), bookId -> new ArrayList<>()).add(i);
+            }
         }
 
-        book.setQuantity(book.getQuantity() - quantity);
-        bookService.updateBook(bookId, book);
+        Map<Long, Integer> stockLevels = bookService.getStockLevels(itemsByBook.keySet());
+        Map<Long, Double> prices = bookService.getPrices(itemsByBook.keySet());
+        LocalDateTime orderDate = LocalDateTime.now();
+        List<Order> orders = new ArrayList<>();
+        List<Integer> orderIndexes = new ArrayList<>();
+        for (Map.Entry<Long, List<Integer>> entry : itemsByBook.entrySet()) {
+            Long bookId = entry.getKey();
+            Integer available = stockLevels.get(bookId);
+            if (available == null) {
+                entry.getValue().forEach(index -> results[index] = OrderResult.failure("Book with ID " + bookId + " not found."));
+                continue;
+            }
 
-        Order order = new Order();
-        order.setCustomerId(customerId);
-        order.setBookId(bookId);
-        order.setQuantity(quantity);
-        order.setStatus("on processing");
-        order.setOrderDate(LocalDateTime.now());
+            List<Integer> accepted = new ArrayList<>();
+            int reserved = 0;
+            for (int index : entry.getValue()) {
+                int quantity = orderRequests.get(index).getQuantity();
+                // Compared as a remainder so a huge quantity cannot overflow the running total.
+                if (quantity <= available - reserved) {
+                    reserved += quantity;
+                    accepted.add(index);
+                } else {
+                    results[index] = OrderResult.failure("Not enough quantity.");
+                }
+            }
 
+            if (reserved > 0 && !bookService.tryReserveStock(bookId, reserved)) {
+                accepted.forEach(index -> results[index] = OrderResult.failure("Not enough quantity."));
+                continue;
+            }
+            for (int index : accepted) {
+                OrderRequest request = orderRequests.get(index);
+                orders.add(newOrder(request.getCustomerId(), bookId, request.getQuantity(), prices.get(bookId), orderDate));
+                orderIndexes.add(index);
+            }
+        }
 
-        return orderRepository.save(order);
+        List<Order> savedOrders = orderRepository.saveAll(orders);
+        for (int i = 0; i < savedOrders.size(); i++) {
+            results[orderIndexes.get(i)] = OrderResult.success(savedOrders.get(i));
+            salesAggregator.recordPlaced(savedOrders.get(i));
+        }
+        return Arrays.asList(results);
     }
 
+    @Transactional
     public Order updateOrderStatus(Long orderId, String status) {
+        OrderStatus newStatus = OrderStatus.fromLabel(status);
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new NoSuchElementException("Order with ID " + orderId + " not found."));
-        order.setStatus(status);
-        return orderRepository.save(order);
+        OrderStatus currentStatus = order.getStatus();
+        if (!currentStatus.canTransitionTo(newStatus)) {
+            throw new IllegalStateException("Order with ID " + orderId + " cannot move from "
+                    + currentStatus.getLabel() + " to " + newStatus.getLabel() + ".");
+        }
+        // Only the request that still sees the status it validated against moves the order, so a transition
+        // such as a cancellation is applied once even when two requests race.
+        if (orderRepository.updateStatus(orderId, currentStatus, newStatus) == 0) {
+            throw new IllegalStateException("Order with ID " + orderId + " is no longer "
+                    + currentStatus.getLabel() + ".");
+        }
+        order.setStatus(newStatus);
+        if (newStatus == OrderStatus.CANCELLED && currentStatus != OrderStatus.CANCELLED) {
+            salesAggregator.recordCancelled(order);
+        }
+        return order;
+    }
+
+    public List<Order> getOrdersByStatus(String status, int page, int size) {
+        OrderStatus orderStatus = OrderStatus.fromLabel(status);
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        return orderRepository.findByStatusOrderByOrderDateAscIdAsc(orderStatus, PageRequest.of(Math.max(page, 0), pageSize));
     }
 
     public Order getOrderById(Long orderId) {
@@ -61,4 +143,29 @@ public class OrderService {
     public List<Order> getOrdersByCustomerId(Long customerId) {
         return orderRepository.findByCustomerId(customerId);
     }
+
+    /**
+     * Returns one page of a customer's orders placed between {@code from} and {@code to} (both inclusive,
+     * either may be open), newest first, with each line's book title joined in.
+     */
+    public List<OrderHistoryItem> getOrderHistory(Long customerId, LocalDate from, LocalDate to, int page, int size) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'.");
+        }
+        LocalDateTime start = from == null ? LocalDateTime.of(1970, 1, 1, 0, 0) : from.atStartOfDay();
+        LocalDateTime end = to == null ? LocalDateTime.of(9999, 1, 1, 0, 0) : to.plusDays(1).atStartOfDay();
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        return orderRepository.findHistory(customerId, start, end, PageRequest.of(Math.max(page, 0), pageSize));
+    }
+
+    private Order newOrder(Long customerId, Long bookId, Integer quantity, Double unitPrice, LocalDateTime orderDate) {
+        Order order = new Order();
+        order.setCustomerId(customerId);
+        order.setBookId(bookId);
+        order.setQuantity(quantity);
+        order.setStatus(OrderStatus.PROCESSING);
+        order.setOrderDate(orderDate);
+        order.setUnitPrice(unitPrice);
+        return order;
+    }
 }
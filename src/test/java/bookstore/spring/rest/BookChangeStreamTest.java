@@ -0,0 +1,58 @@
+package bookstore.spring.rest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import bookstore.changes.BookChangeStream;
+import bookstore.dto.BookChange;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+public class BookChangeStreamTest {
+
+    private BookChangeStream bookChangeStream;
+
+    @BeforeEach
+    public void setUp() {
+        bookChangeStream = new BookChangeStream(4, 10, Duration.ofMinutes(1), Duration.ofMinutes(1));
+        bookChangeStream.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        bookChangeStream.stop();
+    }
+
+    @Test
+    public void testReplay_ResumesAfterLastEventId() {
+        bookChangeStream.publish(BookChange.Type.CREATED, 1L, 10, 9.99);
+        bookChangeStream.publish(BookChange.Type.STOCK, 1L, 8, null);
+        bookChangeStream.publish(BookChange.Type.DELETED, 1L, null, null);
+
+        List<BookChange> missed = bookChangeStream.replay(bookChangeStream.getEpoch() + "-1").orElseThrow();
+
+        assertEquals(2, missed.size());
+        assertEquals(BookChange.Type.STOCK, missed.get(0).getType());
+        assertEquals(3, missed.get(1).getSequence());
+    }
+
+    @Test
+    public void testReplay_RequiresResetOnceEvictedFromRing() {
+        for (int i = 0; i < 6; i++) {
+            bookChangeStream.publish(BookChange.Type.STOCK, 1L, i, null);
+        }
+
+        assertTrue(bookChangeStream.replay(bookChangeStream.getEpoch() + "-1").isEmpty());
+        assertEquals(4, bookChangeStream.replay(bookChangeStream.getEpoch() + "-2").orElseThrow().size());
+    }
+
+    @Test
+    public void testReplay_RequiresResetForOtherEpoch() {
+        bookChangeStream.publish(BookChange.Type.STOCK, 1L, 1, null);
+
+        assertTrue(bookChangeStream.replay("previous-0").isEmpty());
+    }
+}
@@ -1,7 +1,14 @@
 package bookstore.spring.rest;
 
+import bookstore.changes.BookChangeStream;
 import bookstore.controller.BookController;
+import bookstore.dto.BookFields;
+import bookstore.dto.BookLookup;
+import bookstore.dto.BookVersion;
+import bookstore.dto.CursorPage;
+import bookstore.dto.ImportReport;
 import bookstore.entity.Book;
+import bookstore.ingest.BookImporter;
 import bookstore.repository.BookRepository;
 import bookstore.service.BookService;
 import org.junit.jupiter.api.Test;
@@ -9,16 +16,25 @@ import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultMatcher;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 
 import static org.hamcrest.Matchers.containsString;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -38,6 +54,12 @@ public class BookControllerTest {
     @MockBean
     private BookService bookService;
 
+    @MockBean
+    private BookImporter bookImporter;
+
+    @MockBean
+    private BookChangeStream bookChangeStream;
+
 
     @Test
     public void testAddBook_Success() throws Exception {
@@ -62,10 +84,43 @@ public class BookControllerTest {
                 .andExpect(status().isConflict());
     }
 
+    @Test
+    public void testAddBook_OtherConstraintViolationIsBadRequest() throws Exception {
+        when(bookService.addBook(any(Book.class))).thenThrow(new DataIntegrityViolationException("NOT NULL title"));
+
+        mockMvc.perform(post("/api/books")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"author\":\"Author\",\"isbn\":\"123456789\",\"price\":29.99,\"quantity\":10}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testImportCsv_ReturnsReport() throws Exception {
+        when(bookImporter.importCsv(any(Reader.class))).thenReturn(new ImportReport(2, 1, 0, List.of()));
+
+        mockMvc.perform(post("/api/books/import")
+                        .contentType("text/csv")
+                        .content("title,isbn\nA,1\nB,2\nA,1\n"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.inserted").value(2))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.duplicates").value(1));
+    }
+
+    @Test
+    public void testGetAllBooks_ReturnsKeysetPage() throws Exception {
+        Book book = new Book(42L, "Paged Book", "Author", "123456789", 29.99, 10, "A paged book");
+        when(bookService.getBooksPage(40L, 1)).thenReturn(new CursorPage<>(Arrays.asList(book), 42L));
+
+        mockMvc.perform(get("/api/books").param("after", "40").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[0].id").value(42))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.nextCursor").value(42));
+    }
+
     @Test
     public void testUpdateBook_Success() throws Exception {
         Book updatedBook = new Book(1L, "Updated Book", "Author", "123456789", 35.99, 15, "Updated description");
-        when(bookService.updateBook(anyLong(), any(Book.class))).thenReturn(updatedBook);
+        when(bookService.updateBook(anyLong(), any(Book.class), isNull())).thenReturn(updatedBook);
 
         mockMvc.perform(put("/api/books/1")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -75,6 +130,91 @@ public class BookControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("$.price").value(35.99));
     }
 
+    @Test
+    public void testUpdateBook_StaleIfMatch() throws Exception {
+        when(bookService.updateBook(anyLong(), any(Book.class), eq("\"1-10\"")))
+                .thenThrow(new OptimisticLockingFailureException("Book with ID 1 was modified concurrently."));
+
+        mockMvc.perform(put("/api/books/1")
+                        .header("If-Match", "\"1-10\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Updated Book\",\"author\":\"Author\",\"isbn\":\"123456789\",\"price\":35.99,\"quantity\":15,\"description\":\"Updated description\"}"))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    public void testUpdateBook_ConcurrentChangeWithoutIfMatchIsConflict() throws Exception {
+        when(bookService.updateBook(anyLong(), any(Book.class), isNull()))
+                .thenThrow(new ConcurrencyFailureException("Book with ID 1 kept changing during the update."));
+
+        mockMvc.perform(put("/api/books/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Updated Book\",\"author\":\"Author\",\"isbn\":\"123456789\",\"price\":35.99,\"quantity\":15,\"description\":\"Updated description\"}"))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    public void testGetAllBooks_ETagChangesWhenVersionAndQuantityOffset() throws Exception {
+        Book before = new Book(42L, "Paged Book", "Author", "123456789", 29.99, 100, "A paged book");
+        before.setVersion(1L);
+        Book after = new Book(42L, "Paged Book", "Author", "123456789", 29.99, 69, "A paged book");
+        after.setVersion(2L);
+        when(bookService.getBooksPage(null, 50))
+                .thenReturn(new CursorPage<>(List.of(before), null), new CursorPage<>(List.of(after), null));
+
+        String first = mockMvc.perform(get("/api/books")).andReturn().getResponse().getHeader("ETag");
+        String second = mockMvc.perform(get("/api/books")).andReturn().getResponse().getHeader("ETag");
+
+        assertNotEquals(first, second);
+    }
+
+    @Test
+    public void testGetBookById_NotModified() throws Exception {
+        when(bookService.getBookVersion(1L)).thenReturn(Optional.of(new BookVersion(1L, 2L, 10, null)));
+
+        mockMvc.perform(get("/api/books/1").header("If-None-Match", "\"2-10\""))
+                .andExpect(status().isNotModified())
+                .andExpect(MockMvcResultMatchers.header().string("ETag", "W/\"2-10\""))
+                .andExpect(MockMvcResultMatchers.header().string("Vary", "Accept"));
+
+        verify(bookService, never()).getBookById(anyLong());
+    }
+
+    @Test
+    public void testGetBookById_ReturnsETag() throws Exception {
+        Book book = new Book(1L, "Versioned Book", "Author", "123456789", 29.99, 10, "A versioned book");
+        book.setVersion(2L);
+        when(bookService.getBookVersion(1L)).thenReturn(Optional.of(new BookVersion(1L, 2L, 10, null)));
+        when(bookService.getBookById(1L)).thenReturn(book);
+
+        mockMvc.perform(get("/api/books/1").header("If-None-Match", "\"1-10\""))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.header().string("ETag", "W/\"2-10\""))
+                .andExpect(MockMvcResultMatchers.header().string("Vary", "Accept"));
+    }
+
+    @Test
+    public void testPatchBook_Success() throws Exception {
+        Book patchedBook = new Book(1L, "Book", "Author", "123456789", 19.99, 10, "Description");
+        when(bookService.patchBook(eq(1L), any(), isNull())).thenReturn(patchedBook);
+
+        mockMvc.perform(patch("/api/books/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"price\":19.99}"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.price").value(19.99));
+    }
+
+    @Test
+    public void testPatchBook_InvalidField() throws Exception {
+        when(bookService.patchBook(eq(1L), any(), isNull())).thenThrow(new IllegalArgumentException("Unknown field: color"));
+
+        mockMvc.perform(patch("/api/books/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"color\":\"red\"}"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     public void testUpdateBook_DontChangeISBN() {
         Book originBook = new Book(1L, "Origin Book", "Author", "9781234567897", 15.10, 10, "Origin description");
@@ -102,4 +242,96 @@ public class BookControllerTest {
         mockMvc.perform(delete("/api/books/999"))
                 .andExpect(status().isNotFound());
     }
+
+    @Test
+    public void testGetBookById_SparseFields() throws Exception {
+        Book book = new Book(1L, "Sample Book", "Author", "123456789", 29.99, 10, "A long description");
+        when(bookService.getBookById(1L)).thenReturn(book);
+
+        mockMvc.perform(get("/api/books/1").param("fields", "id,title"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.title").value("Sample Book"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.description").doesNotExist())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.price").doesNotExist());
+    }
+
+    @Test
+    public void testGetBookById_UnknownFieldIsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/books/1").param("fields", "id,secret"))
+                .andExpect(status().isBadRequest());
+
+        verify(bookService, never()).getBookById(anyLong());
+    }
+
+    @Test
+    public void testGetAllBooks_SparseFields() throws Exception {
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("id", 42L);
+        item.put("price", 29.99);
+        when(bookService.getBooksPage(eq(40L), eq(1), any(BookFields.class)))
+                .thenReturn(new CursorPage<>(List.of(item), 42L));
+
+        mockMvc.perform(get("/api/books").param("fields", "id,price").param("after", "40").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.header().exists("ETag"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.items[0].price").value(29.99))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.nextCursor").value(42));
+    }
+
+    @Test
+    public void testGetBooksByAuthor_SparseFieldsETagChangesWhenListHashCollides() throws Exception {
+        // Both lists have the same List.hashCode().
+        when(bookService.getBooksByAuthor(eq("Author"), any(BookFields.class)))
+                .thenReturn(List.of(sparse(1L, 10), sparse(2L, 10)), List.of(sparse(1L, 11), sparse(2L, 43)));
+
+        String first = mockMvc.perform(get("/api/books/author/Author").param("fields", "id,quantity"))
+                .andReturn().getResponse().getHeader("ETag");
+        String second = mockMvc.perform(get("/api/books/author/Author").param("fields", "id,quantity"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        assertNotEquals(first, second);
+    }
+
+    @Test
+    public void testGetBooksByIds_ReturnsLookupsInRequestOrder() throws Exception {
+        Book book = new Book(2L, "Second", "Author", "123456789", 29.99, 10, "Description");
+        when(bookService.getBooksByIds(List.of(2L, 99L)))
+                .thenReturn(List.of(BookLookup.of("2", book), BookLookup.of("99", null)));
+
+        mockMvc.perform(get("/api/books").param("ids", "2,99"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].key").value("2"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].book.title").value("Second"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].found").value(false));
+    }
+
+    @Test
+    public void testGetBooksByIds_TooManyKeys() throws Exception {
+        when(bookService.getBooksByIds(anyList())).thenThrow(new IllegalArgumentException("too many keys"));
+
+        mockMvc.perform(get("/api/books").param("ids", "1,2"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testLookupByIsbns() throws Exception {
+        Book book = new Book(2L, "Second", "Author", "123456789", 29.99, 10, "Description");
+        when(bookService.getBooksByIsbns(List.of("123456789", "000")))
+                .thenReturn(List.of(BookLookup.of("123456789", book), BookLookup.of("000", null)));
+
+        mockMvc.perform(post("/api/books/isbn/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[\"123456789\",\"000\"]"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].found").value(true))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].key").value("000"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[1].found").value(false));
+    }
+
+    private static Map<String, Object> sparse(Long id, Integer quantity) {
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("id", id);
+        item.put("quantity", quantity);
+        return item;
+    }
 }
@@ -0,0 +1,130 @@
+package bookstore.spring.rest;
+
+import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import bookstore.cache.IsbnBloomFilter;
+import bookstore.changes.BookChangeStream;
+import bookstore.dto.BookChange;
+import bookstore.dto.ImportReport;
+import bookstore.entity.Book;
+import bookstore.ingest.BookImporter;
+import bookstore.inventory.LowStockMonitor;
+import bookstore.repository.BookRepository;
+import bookstore.search.BookSearchIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+public class BookImporterTest {
+
+    private BookRepository bookRepository;
+    private BookSearchIndex bookSearchIndex;
+    private LowStockMonitor lowStockMonitor;
+    private BookChangeStream bookChangeStream;
+    private BookImporter bookImporter;
+
+    @BeforeEach
+    public void setUp() {
+        bookRepository = mock(BookRepository.class);
+        bookSearchIndex = mock(BookSearchIndex.class);
+        lowStockMonitor = mock(LowStockMonitor.class);
+        bookChangeStream = mock(BookChangeStream.class);
+        when(bookRepository.saveAll(anyIterable())).thenAnswer(invocation -> {
+            List<Book> saved = new ArrayList<>();
+            invocation.<Iterable<Book>>getArgument(0).forEach(saved::add);
+            return saved;
+        });
+        bookImporter = new BookImporter(bookRepository, bookSearchIndex, new IsbnBloomFilter(1000, 0.01),
+                lowStockMonitor, bookChangeStream, mock(PlatformTransactionManager.class), new ObjectMapper(), 2);
+    }
+
+    @Test
+    public void testImportCsv_CountsDuplicatesAndRejects() throws Exception {
+        when(bookRepository.findExistingIsbns(anyCollection())).thenReturn(List.of());
+        when(bookRepository.findExistingIsbns(argThat(isbns -> isbns.contains("300")))).thenReturn(List.of("300"));
+        String csv = "title,author,isbn,price,quantity,description\n"
+                + "First,Author,100,10.5,3,\"Quoted, with comma\"\n"
+                + "Again,Author,100,10.5,3,Same ISBN in the same batch\n"
+                + "Known,Author,300,1,1,Already stored\n"
+                + "Broken,Author,400,cheap,1,Bad price\n"
+                + "Last,Author,500,2,2,\"Multi\nline\"\n";
+
+        ImportReport report = bookImporter.importCsv(new StringReader(csv));
+
+        assertEquals(2, report.getInserted());
+        assertEquals(2, report.getDuplicates());
+        assertEquals(1, report.getRejected());
+        assertEquals("row 5: price is not a number", report.getErrors().get(0));
+        verify(bookSearchIndex, times(2)).index(any(Book.class));
+        verify(lowStockMonitor).record(any(), eq(3), any());
+        verify(lowStockMonitor).record(any(), eq(2), any());
+        verify(bookChangeStream).publish(BookChange.Type.CREATED, null, 3, 10.5);
+        verify(bookChangeStream).publish(BookChange.Type.CREATED, null, 2, 2.0);
+    }
+
+    @Test
+    public void testImportNdjson_InsertsInBatches() throws Exception {
+        when(bookRepository.findExistingIsbns(anyCollection())).thenReturn(List.of());
+        String ndjson = "{\"title\":\"A\",\"isbn\":\"1\",\"quantity\":1}\n"
+                + "{\"title\":\"B\",\"isbn\":\"2\",\"price\":5.0}\n"
+                + "not json\n"
+                + "\n"
+                + "{\"title\":\"C\",\"isbn\":\"3\",\"description\":\"Third\"}\n";
+
+        ImportReport report = bookImporter.importNdjson(new StringReader(ndjson));
+
+        assertEquals(3, report.getInserted());
+        assertEquals(1, report.getRejected());
+        ArgumentCaptor<Iterable<Book>> batches = ArgumentCaptor.forClass(Iterable.class);
+        verify(bookRepository, times(2)).saveAll(batches.capture());
+        assertEquals("Third", batches.getAllValues().get(1).iterator().next().getDescription());
+    }
+
+    @Test
+    public void testImportCsv_RejectsRowsBreakingOtherConstraints() throws Exception {
+        when(bookRepository.findExistingIsbns(anyCollection())).thenReturn(List.of());
+        when(bookRepository.findExistingIsbns(List.of("200"))).thenReturn(List.of("200"));
+        when(bookRepository.saveAll(anyIterable())).thenThrow(new DataIntegrityViolationException("constraint"));
+        when(bookRepository.saveAndFlush(any(Book.class))).thenAnswer(invocation -> {
+            Book book = invocation.getArgument(0);
+            if (!book.getIsbn().equals("300")) {
+                throw new DataIntegrityViolationException("constraint");
+            }
+            return book;
+        });
+        String csv = "title,isbn\n"
+                + "Too long,100\n"
+                + "Taken meanwhile,200\n"
+                + "Fine,300\n";
+
+        ImportReport report = bookImporter.importCsv(new StringReader(csv));
+
+        assertEquals(1, report.getInserted());
+        assertEquals(1, report.getDuplicates());
+        assertEquals(1, report.getRejected());
+        assertEquals("row 2: violates a database constraint", report.getErrors().get(0));
+    }
+
+    @Test
+    public void testImportCsv_MalformedRecordReturnsPartialReport() throws Exception {
+        when(bookRepository.findExistingIsbns(anyCollection())).thenReturn(List.of());
+        String csv = "title,isbn\n"
+                + "First,100\n"
+                + "Second,200\n"
+                + "Huge,\"" + "9".repeat((1 << 20) + 1) + "\"\n";
+
+        ImportReport report = bookImporter.importCsv(new StringReader(csv));
+
+        assertEquals(2, report.getInserted());
+        assertEquals(1, report.getRejected());
+        assertTrue(report.getErrors().get(0).startsWith("row 4: "));
+    }
+}
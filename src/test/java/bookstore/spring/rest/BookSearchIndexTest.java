@@ -0,0 +1,80 @@
+package bookstore.spring.rest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import bookstore.entity.Book;
+import bookstore.search.BookSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class BookSearchIndexTest {
+
+    private BookSearchIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = new BookSearchIndex();
+        index.index(new Book(1L, "The Hobbit", "J. R. R. Tolkien", "111", 10.0, 5, "A journey there and back again"));
+        index.index(new Book(2L, "Dune", "Frank Herbert", "222", 12.0, 5, "A desert planet and its spice, with a hobbit-free plot"));
+        index.index(new Book(3L, "The Silmarillion", "J. R. R. Tolkien", "333", 15.0, 5, "Myths of Middle-earth"));
+    }
+
+    @Test
+    public void testSearch_RanksTitleMatchesAboveDescriptionMatches() {
+        BookSearchIndex.Hits hits = index.search("hobbit", 0, 10);
+
+        assertEquals(Arrays.asList(1L, 2L), hits.getBookIds());
+        assertEquals(2, hits.getTotal());
+    }
+
+    @Test
+    public void testSearch_MatchesPrefixes() {
+        BookSearchIndex.Hits hits = index.search("tolk silm", 0, 10);
+
+        assertEquals(Collections.singletonList(3L), hits.getBookIds());
+    }
+
+    @Test
+    public void testSearch_Pages() {
+        BookSearchIndex.Hits hits = index.search("tolkien", 1, 1);
+
+        assertEquals(1, hits.getBookIds().size());
+        assertEquals(2, hits.getTotal());
+    }
+
+    @Test
+    public void testIndex_UpdateReplacesOldTerms() {
+        index.index(new Book(2L, "Dune Messiah", "Frank Herbert", "222", 12.0, 5, "Paul's reign"));
+
+        assertTrue(index.search("spice", 0, 10).getBookIds().isEmpty());
+        assertEquals(Collections.singletonList(2L), index.search("messiah", 0, 10).getBookIds());
+    }
+
+    @Test
+    public void testRemove_DropsBookFromResults() {
+        index.remove(1L);
+
+        assertEquals(Collections.singletonList(2L), index.search("hobbit", 0, 10).getBookIds());
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    public void testSearch_ShortPrefixKeepsBroadestTermsAndFlagsTruncation() {
+        for (long id = 10; id < 80; id++) {
+            index.index(new Book(id, "Saga " + String.format("zeta%02d", id), "Author", "isbn-" + id, 10.0, 5, null));
+        }
+        for (long id = 80; id < 83; id++) {
+            index.index(new Book(id, "Saga zetazz", "Author", "isbn-" + id, 10.0, 5, null));
+        }
+
+        BookSearchIndex.Hits hits = index.search("zeta", 0, 100);
+
+        assertFalse(hits.isExact());
+        assertTrue(hits.getBookIds().containsAll(Arrays.asList(80L, 81L, 82L)));
+        assertEquals(66, hits.getTotal());
+        assertTrue(index.search("hobbit", 0, 10).isExact());
+    }
+}
@@ -0,0 +1,451 @@
+package bookstore.spring.rest;
+
+import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import bookstore.cache.BookCache;
+import bookstore.cache.IsbnBloomFilter;
+import bookstore.changes.BookChangeStream;
+import bookstore.dto.BookChange;
+import bookstore.dto.BookFields;
+import bookstore.dto.BookLookup;
+import bookstore.dto.BookVersion;
+import bookstore.dto.CursorPage;
+import bookstore.dto.SearchResults;
+import bookstore.entity.Book;
+import bookstore.inventory.InventoryEngine;
+import bookstore.inventory.LowStockMonitor;
+import bookstore.repository.BookRepository;
+import bookstore.repository.BookSummary;
+import bookstore.repository.StockLevel;
+import bookstore.search.BookSearchIndex;
+import bookstore.service.BookService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.*;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+public class BookServiceTest {
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private BookCache bookCache;
+
+    @Mock
+    private BookSearchIndex bookSearchIndex;
+
+    @Mock
+    private InventoryEngine inventoryEngine;
+
+    @Mock
+    private IsbnBloomFilter isbnBloomFilter;
+
+    @Mock
+    private LowStockMonitor lowStockMonitor;
+
+    @Mock
+    private BookChangeStream bookChangeStream;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private BookService bookService;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    public void testAddBook_ReliesOnUniqueIndex() {
+        Book book = new Book(null, "New Book", "Author", "123456789", 29.99, 10, "A new adventure book");
+        when(bookRepository.saveAndFlush(book)).thenReturn(book);
+
+        bookService.addBook(book);
+
+        verify(isbnBloomFilter).put("123456789");
+        verify(bookRepository, never()).findByIsbn(anyString());
+        verify(bookSearchIndex).index(book);
+    }
+
+    @Test
+    public void testAddBook_DuplicateIsbn() {
+        Book book = new Book(null, "Duplicate Book", "Author", "123456789", 29.99, 10, "Duplicate entry");
+        when(bookRepository.saveAndFlush(book)).thenThrow(new DataIntegrityViolationException("idx_book_isbn"));
+        when(bookRepository.findExistingIsbns(List.of("123456789"))).thenReturn(List.of("123456789"));
+
+        assertThrows(IllegalArgumentException.class, () -> bookService.addBook(book));
+    }
+
+    @Test
+    public void testAddBook_OtherConstraintViolationIsNotADuplicate() {
+        Book book = new Book(null, null, "Author", "123456789", 29.99, 10, "Missing title");
+        when(bookRepository.saveAndFlush(book)).thenThrow(new DataIntegrityViolationException("NOT NULL title"));
+        when(bookRepository.findExistingIsbns(List.of("123456789"))).thenReturn(List.of());
+
+        assertThrows(DataIntegrityViolationException.class, () -> bookService.addBook(book));
+        verify(bookSearchIndex, never()).index(any());
+    }
+
+    @Test
+    public void testGetBookByIsbn_FilterMissSkipsLookup() {
+        when(isbnBloomFilter.mightContain("0000000000")).thenReturn(false);
+
+        assertTrue(bookService.getBookByIsbn("0000000000").isEmpty());
+        verifyNoInteractions(bookCache, bookRepository);
+    }
+
+    @Test
+    public void testReserveStock_Success() {
+        when(bookRepository.decrementQuantity(eq(1L), eq(3), any(Instant.class))).thenReturn(1);
+
+        bookService.reserveStock(1L, 3);
+
+        verify(bookRepository).decrementQuantity(eq(1L), eq(3), any(Instant.class));
+        verify(bookCache).evict(1L);
+        verify(bookRepository, never()).findById(anyLong());
+        verify(bookRepository, never()).save(any(Book.class));
+    }
+
+    @Test
+    public void testReserveStock_ReportsRemainingStock() {
+        StockLevel stockLevel = mock(StockLevel.class);
+        when(stockLevel.getQuantity()).thenReturn(2);
+        when(stockLevel.getReorderLevel()).thenReturn(3);
+        when(bookRepository.decrementQuantity(eq(1L), eq(3), any(Instant.class))).thenReturn(1);
+        when(bookRepository.findStockLevelById(1L)).thenReturn(Optional.of(stockLevel));
+
+        bookService.reserveStock(1L, 3);
+
+        verify(lowStockMonitor).record(1L, 2, 3);
+        verify(bookChangeStream).publish(BookChange.Type.STOCK, 1L, 2, null);
+    }
+
+    @Test
+    public void testReserveStock_InsufficientStock() {
+        when(bookRepository.decrementQuantity(eq(1L), eq(3), any(Instant.class))).thenReturn(0);
+        when(bookRepository.existsById(1L)).thenReturn(true);
+
+        assertThrows(IllegalArgumentException.class, () -> bookService.reserveStock(1L, 3));
+    }
+
+    @Test
+    public void testReserveStock_BookNotFound() {
+        when(bookRepository.decrementQuantity(eq(1L), eq(3), any(Instant.class))).thenReturn(0);
+        when(bookRepository.existsById(1L)).thenReturn(false);
+
+        assertThrows(NoSuchElementException.class, () -> bookService.reserveStock(1L, 3));
+    }
+
+    @Test
+    public void testReserveStock_HotBookReservesInMemory() {
+        when(inventoryEngine.isHot(1L)).thenReturn(true);
+        when(inventoryEngine.tryReserve(1L, 3)).thenReturn(0L);
+
+        bookService.reserveStock(1L, 3);
+
+        verify(bookRepository, never()).decrementQuantity(anyLong(), anyInt(), any(Instant.class));
+    }
+
+    @Test
+    public void testReserveStock_HotBookSoldOut() {
+        when(inventoryEngine.isHot(1L)).thenReturn(true);
+        when(inventoryEngine.tryReserve(1L, 3)).thenReturn(InventoryEngine.NOT_RESERVED);
+        when(bookRepository.existsById(1L)).thenReturn(true);
+
+        assertThrows(IllegalArgumentException.class, () -> bookService.reserveStock(1L, 3));
+    }
+
+    @Test
+    public void testReserveStock_RejectsNonPositiveQuantity() {
+        assertThrows(IllegalArgumentException.class, () -> bookService.reserveStock(1L, 0));
+
+        verifyNoInteractions(bookRepository, inventoryEngine);
+    }
+
+    @Test
+    public void testGetBookVersion_PrefersCacheAndOverlaysLiveQuantity() {
+        Book cached = new Book(1L, "Cached", "Author", "111", 10.0, 5, "Cached description");
+        cached.setVersion(3L);
+        when(bookCache.peek(1L)).thenReturn(Optional.of(cached));
+        when(inventoryEngine.getAvailable(1L)).thenReturn(2);
+
+        BookVersion version = bookService.getBookVersion(1L).orElseThrow();
+
+        assertEquals("W/\"3-2\"", version.getETag());
+        verify(bookRepository, never()).findVersionById(anyLong());
+    }
+
+    @Test
+    public void testUpdateBook_RejectsStaleIfMatch() {
+        Book current = new Book(1L, "Current", "Author", "111", 10.0, 5, "Current description");
+        current.setVersion(4L);
+        Book updated = new Book(1L, "Updated", "Author", "111", 12.0, 5, "Updated description");
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(current));
+
+        assertThrows(OptimisticLockingFailureException.class, () -> bookService.updateBook(1L, updated, "\"3-5\""));
+        verify(bookRepository, never()).saveAndFlush(any(Book.class));
+    }
+
+    @Test
+    public void testUpdateBook_WithoutIfMatchRetriesConcurrentChange() {
+        Book stale = new Book(1L, "Current", "Author", "111", 10.0, 5, "Current description");
+        Book fresh = new Book(1L, "Current", "Author", "111", 10.0, 4, "Current description");
+        Book updated = new Book(1L, "Updated", "Author", "111", 12.0, 4, "Updated description");
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(stale), Optional.of(fresh));
+        when(bookRepository.saveAndFlush(any(Book.class)))
+                .thenThrow(new OptimisticLockingFailureException("stale"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        Book saved = bookService.updateBook(1L, updated, null);
+
+        assertSame(fresh, saved);
+        assertEquals("Updated", saved.getTitle());
+        verify(bookRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    public void testUpdateBook_HotBookResetsCounterWhileWriteBehindIsHeld() {
+        Book current = new Book(1L, "Current", "Author", "111", 10.0, 5, "Current description");
+        Book updated = new Book(1L, "Updated", "Author", "111", 12.0, 40, "Updated description");
+        when(inventoryEngine.isHot(1L)).thenReturn(true);
+        when(inventoryEngine.whileFlushed(eq(1L), any())).thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(current));
+        when(bookRepository.saveAndFlush(any(Book.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        bookService.updateBook(1L, updated, null);
+
+        InOrder inOrder = inOrder(inventoryEngine, bookRepository);
+        inOrder.verify(inventoryEngine).whileFlushed(eq(1L), any());
+        inOrder.verify(bookRepository).saveAndFlush(current);
+        inOrder.verify(inventoryEngine).resetTo(1L, 40);
+        verify(inventoryEngine, never()).flush(anyLong());
+    }
+
+    @Test
+    public void testUpdateBook_WithoutIfMatchGivesUpAsConflict() {
+        Book current = new Book(1L, "Current", "Author", "111", 10.0, 5, "Current description");
+        Book updated = new Book(1L, "Updated", "Author", "111", 12.0, 5, "Updated description");
+        when(bookRepository.findById(1L)).thenAnswer(invocation -> Optional.of(current.copy()));
+        when(bookRepository.saveAndFlush(any(Book.class))).thenThrow(new OptimisticLockingFailureException("stale"));
+
+        ConcurrencyFailureException e = assertThrows(ConcurrencyFailureException.class,
+                () -> bookService.updateBook(1L, updated, null));
+
+        assertFalse(e instanceof OptimisticLockingFailureException);
+        verify(bookRepository, times(3)).saveAndFlush(any(Book.class));
+    }
+
+    @Test
+    public void testUpdateBook_WithIfMatchDoesNotRetry() {
+        Book current = new Book(1L, "Current", "Author", "111", 10.0, 5, "Current description");
+        current.setVersion(3L);
+        Book updated = new Book(1L, "Updated", "Author", "111", 12.0, 5, "Updated description");
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(current));
+        when(bookRepository.saveAndFlush(any(Book.class))).thenThrow(new OptimisticLockingFailureException("stale"));
+
+        assertThrows(OptimisticLockingFailureException.class, () -> bookService.updateBook(1L, updated, "\"3-5\""));
+        verify(bookRepository, times(1)).saveAndFlush(any(Book.class));
+    }
+
+    @Test
+    public void testPatchBook_TouchesOnlyPatchedFields() throws Exception {
+        Book current = new Book(1L, "Current", "Author", "111", 10.0, 5, "Long description");
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(current));
+        when(bookRepository.saveAndFlush(any(Book.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Book patched = bookService.patchBook(1L, new ObjectMapper().readTree("{\"price\": 12.5}"), null);
+
+        assertEquals(12.5, patched.getPrice());
+        assertEquals("Long description", patched.getDescription());
+        assertEquals(5, patched.getQuantity());
+        verify(inventoryEngine, never()).flush(anyLong());
+        verify(bookCache).evict(1L);
+    }
+
+    @Test
+    public void testPatchBook_RejectsIsbnChange() throws Exception {
+        Book current = new Book(1L, "Current", "Author", "111", 10.0, 5, "Current description");
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(current));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> bookService.patchBook(1L, new ObjectMapper().readTree("{\"isbn\": \"222\"}"), null));
+        verify(bookRepository, never()).saveAndFlush(any(Book.class));
+    }
+
+    @Test
+    public void testGetBooksPage_ReturnsCursorWhenPageIsFull() {
+        Book first = new Book(4L, "First", "Author", "111", 10.0, 1, "First description");
+        Book second = new Book(7L, "Second", "Author", "222", 12.0, 1, "Second description");
+        when(bookRepository.findByIdGreaterThanOrderByIdAsc(eq(3L), any(Pageable.class))).thenReturn(Arrays.asList(first, second));
+
+        CursorPage<Book> page = bookService.getBooksPage(3L, 2);
+
+        assertEquals(2, page.getItems().size());
+        assertEquals(7L, page.getNextCursor());
+    }
+
+    @Test
+    public void testGetBooksPage_OverlaysLiveStockOnCopies() {
+        Book hot = new Book(4L, "First", "Author", "111", 10.0, 50, "First description");
+        when(bookRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any(Pageable.class))).thenReturn(List.of(hot));
+        when(inventoryEngine.getAvailable(4L)).thenReturn(42);
+
+        CursorPage<Book> page = bookService.getBooksPage(null, 10);
+
+        assertEquals(42, page.getItems().get(0).getQuantity());
+        assertEquals(50, hot.getQuantity());
+    }
+
+    @Test
+    public void testGetBooksByAuthor_WithFieldsOverlaysLiveStock() {
+        BookSummary summary = mock(BookSummary.class);
+        when(summary.getId()).thenReturn(4L);
+        when(summary.getQuantity()).thenReturn(50);
+        when(bookRepository.findByAuthor("Author", BookSummary.class)).thenReturn(List.of(summary));
+        when(inventoryEngine.getAvailable(4L)).thenReturn(42);
+
+        List<Map<String, Object>> books = bookService.getBooksByAuthor("Author", BookFields.parse("id,quantity"));
+
+        assertEquals(42, books.get(0).get("quantity"));
+    }
+
+    @Test
+    public void testGetBooksPage_LastPageHasNoCursor() {
+        when(bookRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any(Pageable.class))).thenReturn(Collections.emptyList());
+
+        CursorPage<Book> page = bookService.getBooksPage(null, 10_000);
+
+        ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+        verify(bookRepository).findByIdGreaterThanOrderByIdAsc(eq(0L), pageable.capture());
+        assertEquals(BookService.MAX_PAGE_SIZE, pageable.getValue().getPageSize());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    public void testGetBooksPage_WithFieldsReadsSummaryProjection() {
+        BookSummary summary = mock(BookSummary.class);
+        when(summary.getId()).thenReturn(4L);
+        when(summary.getTitle()).thenReturn("First");
+        when(bookRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any(Pageable.class), eq(BookSummary.class)))
+                .thenReturn(List.of(summary));
+
+        CursorPage<Map<String, Object>> page = bookService.getBooksPage(null, 1, BookFields.parse("title,id"));
+
+        assertEquals(List.of("title", "id"), List.copyOf(page.getItems().get(0).keySet()));
+        assertEquals("First", page.getItems().get(0).get("title"));
+        assertEquals(4L, page.getNextCursor());
+        verify(bookRepository, never()).findByIdGreaterThanOrderByIdAsc(anyLong(), any(Pageable.class));
+    }
+
+    @Test
+    public void testGetBooksByAuthor_WithDescriptionLoadsEntities() {
+        Book book = new Book(4L, "First", "Author", "111", 10.0, 1, "First description");
+        when(bookRepository.findByAuthor("Author")).thenReturn(List.of(book));
+
+        List<Map<String, Object>> books = bookService.getBooksByAuthor("Author", BookFields.parse("id,description"));
+
+        assertEquals("First description", books.get(0).get("description"));
+        verify(bookRepository, never()).findByAuthor(anyString(), any());
+    }
+
+    @Test
+    public void testBookFields_RejectsUnknownField() {
+        assertThrows(IllegalArgumentException.class, () -> BookFields.parse("id,secret"));
+        assertThrows(IllegalArgumentException.class, () -> BookFields.parse(" , "));
+    }
+
+    @Test
+    public void testGetBooksByIds_KeepsRequestOrderAndMarksMisses() {
+        Book first = new Book(4L, "First", "Author", "111", 10.0, 1, "First description");
+        Book second = new Book(7L, "Second", "Author", "222", 12.0, 1, "Second description");
+        when(bookCache.findAllById(anyCollection())).thenReturn(Map.of(4L, first, 7L, second));
+
+        List<BookLookup> lookups = bookService.getBooksByIds(Arrays.asList(7L, 99L, 4L));
+
+        assertEquals(List.of("7", "99", "4"), lookups.stream().map(BookLookup::getKey).toList());
+        assertEquals("Second", lookups.get(0).getBook().getTitle());
+        assertFalse(lookups.get(1).isFound());
+        assertNull(lookups.get(1).getBook());
+        assertTrue(lookups.get(2).isFound());
+        verify(bookCache).findAllById(new LinkedHashSet<>(List.of(7L, 99L, 4L)));
+    }
+
+    @Test
+    public void testGetBooksByIds_RejectsTooManyKeys() {
+        List<Long> ids = Collections.nCopies(BookService.MAX_LOOKUP_KEYS + 1, 1L);
+
+        assertThrows(IllegalArgumentException.class, () -> bookService.getBooksByIds(ids));
+        verifyNoInteractions(bookCache);
+    }
+
+    @Test
+    public void testGetBooksByIsbns_SkipsIsbnsRuledOutByBloomFilter() {
+        Book book = new Book(4L, "First", "Author", "111", 10.0, 1, "First description");
+        when(isbnBloomFilter.mightContain("111")).thenReturn(true);
+        when(isbnBloomFilter.mightContain("000")).thenReturn(false);
+        when(bookCache.findAllByIsbn(anyCollection())).thenReturn(Map.of("111", book));
+
+        List<BookLookup> lookups = bookService.getBooksByIsbns(List.of("000", "111"));
+
+        assertFalse(lookups.get(0).isFound());
+        assertEquals(4L, lookups.get(1).getBook().getId());
+        verify(bookCache).findAllByIsbn(argThat(isbns -> List.copyOf(isbns).equals(List.of("111"))));
+    }
+
+    @Test
+    public void testSearchBooks_ServesFromCacheWithLiveQuantity() {
+        Book book = new Book(4L, "First", "Author", "111", 10.0, 5, "First description");
+        when(bookSearchIndex.search("first", 0, 20)).thenReturn(new BookSearchIndex.Hits(List.of(4L), 1));
+        when(bookCache.findAllById(List.of(4L))).thenReturn(Map.of(4L, book));
+        when(inventoryEngine.getAvailable(4L)).thenReturn(2);
+
+        SearchResults results = bookService.searchBooks("first", 0, 20);
+
+        assertEquals(2, results.getItems().get(0).getQuantity());
+        verify(bookRepository, never()).findAllById(any());
+    }
+
+    @Test
+    public void testSearchBooks_ReportsTruncatedTotal() {
+        when(bookSearchIndex.search("s", 0, 20)).thenReturn(new BookSearchIndex.Hits(List.of(), 64, false));
+
+        SearchResults results = bookService.searchBooks("s", 0, 20);
+
+        assertEquals(64, results.getTotal());
+        assertFalse(results.isTotalExact());
+    }
+
+    @Test
+    public void testSearchBooks_HugePageDoesNotOverflowOffset() {
+        when(bookSearchIndex.search(eq("first"), anyInt(), eq(BookService.MAX_PAGE_SIZE)))
+                .thenReturn(new BookSearchIndex.Hits(List.of(), 1));
+
+        SearchResults results = bookService.searchBooks("first", Integer.MAX_VALUE, BookService.MAX_PAGE_SIZE);
+
+        verify(bookSearchIndex).search("first", Integer.MAX_VALUE, BookService.MAX_PAGE_SIZE);
+        assertTrue(results.getItems().isEmpty());
+    }
+}
@@ -0,0 +1,172 @@
+package bookstore.spring.rest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import bookstore.cache.BoundedCache;
+import bookstore.cache.CacheStats;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BoundedCacheTest {
+
+    @Test
+    public void testGet_LoadsOnceThenHits() {
+        BoundedCache<Long, String> cache = new BoundedCache<>(10, Duration.ofMinutes(1));
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("book-1", cache.get(1L, id -> {
+            loads.incrementAndGet();
+            return "book-" + id;
+        }));
+        assertEquals("book-1", cache.get(1L, id -> {
+            loads.incrementAndGet();
+            return "book-" + id;
+        }));
+
+        CacheStats stats = cache.stats();
+        assertEquals(1, loads.get());
+        assertEquals(1, stats.getHits());
+        assertEquals(1, stats.getMisses());
+    }
+
+    @Test
+    public void testGet_DoesNotCacheMissingValues() {
+        BoundedCache<Long, String> cache = new BoundedCache<>(10, Duration.ofMinutes(1));
+
+        assertNull(cache.get(1L, id -> null));
+
+        assertEquals(0, cache.stats().getSize());
+    }
+
+    @Test
+    public void testGet_CoalescesConcurrentMisses() throws Exception {
+        BoundedCache<Long, String> cache = new BoundedCache<>(10, Duration.ofMinutes(1));
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> first = executor.submit(() -> cache.get(1L, id -> {
+                loads.incrementAndGet();
+                loaderStarted.countDown();
+                await(releaseLoader);
+                return "book-1";
+            }));
+            assertTrue(loaderStarted.await(5, TimeUnit.SECONDS));
+            Future<String> second = executor.submit(() -> cache.get(1L, id -> {
+                loads.incrementAndGet();
+                return "book-1";
+            }));
+            Thread.sleep(50);
+            releaseLoader.countDown();
+
+            assertEquals("book-1", first.get(5, TimeUnit.SECONDS));
+            assertEquals("book-1", second.get(5, TimeUnit.SECONDS));
+            assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testInvalidate_DuringLoadDiscardsLoadedValue() {
+        BoundedCache<Long, String> cache = new BoundedCache<>(10, Duration.ofMinutes(1));
+
+        String value = cache.get(1L, id -> {
+            cache.invalidate(id);
+            return "stale";
+        });
+
+        assertEquals("stale", value);
+        assertNull(cache.getIfPresent(1L));
+    }
+
+    @Test
+    public void testPutIfNotInvalidatedSince_DropsValueReadBeforeInvalidation() {
+        BoundedCache<Long, String> cache = new BoundedCache<>(10, Duration.ofMinutes(1));
+
+        long stamp = cache.invalidationStamp();
+        cache.invalidate(1L);
+        cache.putIfNotInvalidatedSince(1L, "stale", stamp);
+        assertNull(cache.getIfPresent(1L));
+
+        cache.putIfNotInvalidatedSince(1L, "fresh", cache.invalidationStamp());
+        assertEquals("fresh", cache.getIfPresent(1L));
+    }
+
+    @Test
+    public void testGetAll_LoadsOnlyMissesInOneCall() {
+        BoundedCache<Long, String> cache = new BoundedCache<>(10, Duration.ofMinutes(1));
+        cache.get(1L, id -> "book-1");
+        List<Set<Long>> loaderCalls = new ArrayList<>();
+
+        Map<Long, String> values = cache.getAll(List.of(1L, 2L, 3L, 2L), misses -> {
+            loaderCalls.add(Set.copyOf(misses));
+            return Map.of(2L, "book-2");
+        });
+
+        assertEquals(Map.of(1L, "book-1", 2L, "book-2"), values);
+        assertEquals(List.of(Set.of(2L, 3L)), loaderCalls);
+        assertEquals("book-2", cache.getIfPresent(2L));
+        assertNull(cache.getIfPresent(3L));
+    }
+
+    @Test
+    public void testGetAll_InvalidateDuringLoadDiscardsLoadedValue() {
+        BoundedCache<Long, String> cache = new BoundedCache<>(10, Duration.ofMinutes(1));
+
+        Map<Long, String> values = cache.getAll(List.of(1L, 2L), misses -> {
+            cache.invalidate(1L);
+            return Map.of(1L, "stale", 2L, "book-2");
+        });
+
+        assertEquals("stale", values.get(1L));
+        assertNull(cache.getIfPresent(1L));
+        assertEquals("book-2", cache.getIfPresent(2L));
+    }
+
+    @Test
+    public void testPut_EvictsOldestEntriesOverMaxSize() {
+        BoundedCache<Long, String> cache = new BoundedCache<>(2, Duration.ofMinutes(1));
+
+        cache.put(1L, "one");
+        cache.put(2L, "two");
+        cache.put(3L, "three");
+
+        assertNull(cache.getIfPresent(1L));
+        assertEquals("three", cache.getIfPresent(3L));
+        assertEquals(2, cache.stats().getSize());
+        assertEquals(1, cache.stats().getEvictions());
+    }
+
+    @Test
+    public void testGet_ReloadsExpiredEntries() {
+        BoundedCache<Long, String> cache = new BoundedCache<>(10, Duration.ZERO);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(1L, id -> "load-" + loads.incrementAndGet());
+        String value = cache.get(1L, id -> "load-" + loads.incrementAndGet());
+
+        assertEquals("load-2", value);
+        assertEquals(1, cache.stats().getEvictions());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
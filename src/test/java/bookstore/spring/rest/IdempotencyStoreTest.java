@@ -0,0 +1,86 @@
+package bookstore.spring.rest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import bookstore.cache.IdempotencyStore;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class IdempotencyStoreTest {
+
+    @Test
+    public void testExecute_ConcurrentDuplicatesRunOnce() throws Exception {
+        IdempotencyStore store = new IdempotencyStore(100, Duration.ofMinutes(1));
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<ResponseEntity<String>> first = executor.submit(() -> store.execute("key", "order:1", () -> {
+                runs.incrementAndGet();
+                started.countDown();
+                await(release);
+                return ResponseEntity.status(HttpStatus.CREATED).body("order-1");
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<ResponseEntity<String>> duplicate = executor.submit(() -> store.execute("key", "order:1", () -> {
+                runs.incrementAndGet();
+                return ResponseEntity.status(HttpStatus.CREATED).body("order-2");
+            }));
+            // The duplicate counts the second miss just before it joins the first request's load.
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (store.stats().getMisses() < 2 && System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+            assertEquals(2, store.stats().getMisses());
+            release.countDown();
+
+            assertEquals("order-1", first.get(5, TimeUnit.SECONDS).getBody());
+            ResponseEntity<String> replayed = duplicate.get(5, TimeUnit.SECONDS);
+            assertEquals("order-1", replayed.getBody());
+            assertEquals(HttpStatus.CREATED, replayed.getStatusCode());
+            assertEquals("true", replayed.getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER));
+            assertEquals(1, runs.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testExecute_FailedRequestCanBeRetried() {
+        IdempotencyStore store = new IdempotencyStore(100, Duration.ofMinutes(1));
+
+        assertThrows(IllegalStateException.class, () -> store.execute("key", "order:1", () -> {
+            throw new IllegalStateException("database unavailable");
+        }));
+        ResponseEntity<String> retried = store.execute("key", "order:1", () -> ResponseEntity.ok("order-1"));
+
+        assertEquals("order-1", retried.getBody());
+        assertNull(retried.getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER));
+    }
+
+    @Test
+    public void testExecute_RejectsOversizedKey() {
+        IdempotencyStore store = new IdempotencyStore(100, Duration.ofMinutes(1));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> store.execute("k".repeat(IdempotencyStore.MAX_KEY_LENGTH + 1), "order:1", () -> ResponseEntity.ok("x")));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
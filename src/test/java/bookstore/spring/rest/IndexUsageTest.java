@@ -0,0 +1,46 @@
+package bookstore.spring.rest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+@DataJpaTest
+public class IndexUsageTest {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    public void testFindByIsbn_UsesUniqueIndex() {
+        assertPlanUsesIndex("SELECT * FROM book WHERE isbn = '123456789'", "IDX_BOOK_ISBN");
+    }
+
+    @Test
+    public void testFindByAuthor_UsesIndex() {
+        assertPlanUsesIndex("SELECT * FROM book WHERE author = 'Author'", "IDX_BOOK_AUTHOR");
+    }
+
+    @Test
+    public void testFindByCustomerId_UsesIndex() {
+        assertPlanUsesIndex("SELECT * FROM orders WHERE customer_id = 1", "IDX_ORDERS_CUSTOMER_ID_ORDER_DATE");
+    }
+
+    @Test
+    public void testOrderHistory_UsesCustomerOrderDateIndex() {
+        assertPlanUsesIndex("SELECT * FROM orders WHERE customer_id = 1 AND order_date >= '2024-01-01' "
+                + "AND order_date < '2024-02-01' ORDER BY order_date DESC", "IDX_ORDERS_CUSTOMER_ID_ORDER_DATE");
+    }
+
+    @Test
+    public void testFindByStatus_UsesStatusOrderDateIndex() {
+        assertPlanUsesIndex("SELECT * FROM orders WHERE status = 'P' ORDER BY order_date", "IDX_ORDERS_STATUS_ORDER_DATE");
+    }
+
+    private void assertPlanUsesIndex(String query, String indexName) {
+        String plan = String.valueOf(entityManager.createNativeQuery("EXPLAIN " + query).getSingleResult());
+        assertTrue(plan.toUpperCase().contains(indexName), () -> "Expected " + indexName + " in plan: " + plan);
+    }
+}
@@ -0,0 +1,160 @@
+package bookstore.spring.rest;
+
+import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import bookstore.inventory.InventoryEngine;
+import bookstore.repository.BookRepository;
+import bookstore.repository.StockLevel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class InventoryEngineTest {
+
+    private BookRepository bookRepository;
+    private InventoryEngine inventoryEngine;
+
+    @BeforeEach
+    public void setUp() {
+        bookRepository = mock(BookRepository.class);
+        StockLevel stockLevel = mock(StockLevel.class);
+        when(stockLevel.getId()).thenReturn(1L);
+        when(stockLevel.getQuantity()).thenReturn(1000);
+        when(bookRepository.findStockLevelsByIdIn(anyCollection())).thenReturn(Collections.singletonList(stockLevel));
+
+        inventoryEngine = new InventoryEngine(bookRepository, mock(PlatformTransactionManager.class),
+                List.of(1L), 8, Duration.ofSeconds(1));
+        inventoryEngine.reconcile();
+    }
+
+    @Test
+    public void testReconcile_LoadsHotBooksFromDatabase() {
+        assertTrue(inventoryEngine.isHot(1L));
+        assertFalse(inventoryEngine.isHot(2L));
+        assertEquals(1000, inventoryEngine.getAvailable(1L));
+    }
+
+    @Test
+    public void testTryReserve_NeverOversellsUnderContention() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> workers = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                workers.add(executor.submit(() -> {
+                    int reserved = 0;
+                    while (inventoryEngine.tryReserve(1L, 3) != InventoryEngine.NOT_RESERVED) {
+                        reserved += 3;
+                    }
+                    return reserved;
+                }));
+            }
+            int total = 0;
+            for (Future<Integer> worker : workers) {
+                total += worker.get();
+            }
+
+            assertEquals(1000, total + inventoryEngine.getAvailable(1L));
+            assertTrue(inventoryEngine.getAvailable(1L) >= 0);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFlush_WritesNetReservedQuantity() {
+        assertNotEquals(InventoryEngine.NOT_RESERVED, inventoryEngine.tryReserve(1L, 5));
+        long epoch = inventoryEngine.tryReserve(1L, 4);
+        inventoryEngine.release(1L, 2, epoch);
+
+        inventoryEngine.flushAll();
+        inventoryEngine.flushAll();
+
+        verify(bookRepository, times(1)).applyReservedQuantity(1L, 7);
+        assertEquals(993, inventoryEngine.getAvailable(1L));
+    }
+
+    @Test
+    public void testResetTo_DiscardsUnflushedReservations() {
+        assertNotEquals(InventoryEngine.NOT_RESERVED, inventoryEngine.tryReserve(1L, 5));
+
+        inventoryEngine.resetTo(1L, 50);
+        inventoryEngine.flushAll();
+
+        assertEquals(50, inventoryEngine.getAvailable(1L));
+        verify(bookRepository, never()).applyReservedQuantity(anyLong(), anyInt());
+    }
+
+    @Test
+    public void testRelease_IgnoresReservationsMadeBeforeReset() {
+        long epoch = inventoryEngine.tryReserve(1L, 5);
+
+        inventoryEngine.resetTo(1L, 50);
+        inventoryEngine.release(1L, 5, epoch);
+        inventoryEngine.flushAll();
+
+        assertEquals(50, inventoryEngine.getAvailable(1L));
+        verify(bookRepository, never()).applyReservedQuantity(anyLong(), anyInt());
+    }
+
+    @Test
+    public void testResetTo_ConsistentWithConcurrentReservationsAndReleases() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                workers.add(executor.submit(() -> {
+                    for (int n = 0; n < 20_000; n++) {
+                        long epoch = inventoryEngine.tryReserve(1L, 1);
+                        if (epoch != InventoryEngine.NOT_RESERVED) {
+                            inventoryEngine.release(1L, 1, epoch);
+                        }
+                    }
+                }));
+            }
+            while (!workers.stream().allMatch(Future::isDone)) {
+                inventoryEngine.resetTo(1L, 1000);
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+            inventoryEngine.flushAll();
+
+            assertEquals(1000, inventoryEngine.getAvailable(1L));
+            verify(bookRepository, never()).applyReservedQuantity(anyLong(), anyInt());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testWhileFlushed_HoldsOffWriteBehindDuringTheAction() throws Exception {
+        inventoryEngine.tryReserve(1L, 5);
+
+        inventoryEngine.whileFlushed(1L, () -> {
+            inventoryEngine.tryReserve(1L, 3);
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            try {
+                executor.submit(inventoryEngine::flushAll).get();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            } finally {
+                executor.shutdownNow();
+            }
+            return null;
+        });
+
+        verify(bookRepository).applyReservedQuantity(1L, 5);
+        verify(bookRepository, never()).applyReservedQuantity(1L, 3);
+        inventoryEngine.flushAll();
+        verify(bookRepository).applyReservedQuantity(1L, 3);
+    }
+}
@@ -0,0 +1,46 @@
+package bookstore.spring.rest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import bookstore.cache.IsbnBloomFilter;
+import org.junit.jupiter.api.Test;
+
+public class IsbnBloomFilterTest {
+
+    @Test
+    public void testMightContain_EverythingUntilReady() {
+        IsbnBloomFilter filter = new IsbnBloomFilter(1000, 0.01);
+
+        assertTrue(filter.mightContain("9780000000001"));
+    }
+
+    @Test
+    public void testMightContain_NoFalseNegatives() {
+        IsbnBloomFilter filter = new IsbnBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("978" + i);
+        }
+        filter.markReady();
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("978" + i));
+        }
+    }
+
+    @Test
+    public void testMightContain_FalsePositiveRateNearTarget() {
+        IsbnBloomFilter filter = new IsbnBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("978" + i);
+        }
+        filter.markReady();
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.mightContain("979" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
+}
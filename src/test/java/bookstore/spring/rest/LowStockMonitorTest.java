@@ -0,0 +1,65 @@
+package bookstore.spring.rest;
+
+import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import bookstore.dto.LowStockAlert;
+import bookstore.inventory.LowStockMonitor;
+import bookstore.repository.BookRepository;
+import bookstore.repository.StockLevel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.Collections;
+import java.util.List;
+
+public class LowStockMonitorTest {
+
+    private BookRepository bookRepository;
+    private ApplicationEventPublisher eventPublisher;
+    private LowStockMonitor lowStockMonitor;
+
+    @BeforeEach
+    public void setUp() {
+        bookRepository = mock(BookRepository.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        lowStockMonitor = new LowStockMonitor(bookRepository, eventPublisher, 5);
+    }
+
+    @Test
+    public void testRecord_PublishesOnlyOnCrossing() {
+        when(bookRepository.findBelowReorderLevel(5)).thenReturn(Collections.emptyList());
+        lowStockMonitor.seed();
+
+        lowStockMonitor.record(1L, 6, null);
+        lowStockMonitor.record(1L, 4, null);
+        lowStockMonitor.record(1L, 2, null);
+
+        ArgumentCaptor<LowStockAlert> alert = ArgumentCaptor.forClass(LowStockAlert.class);
+        verify(eventPublisher, times(1)).publishEvent(alert.capture());
+        assertEquals(4, alert.getValue().getQuantity());
+        assertEquals(2, lowStockMonitor.getLowStock(0, 10).get(0).getQuantity());
+
+        lowStockMonitor.record(1L, 20, null);
+        lowStockMonitor.record(1L, 1, null);
+
+        verify(eventPublisher, times(2)).publishEvent(any(LowStockAlert.class));
+    }
+
+    @Test
+    public void testSeed_KnownLowBooksDoNotAlertAgain() {
+        StockLevel stockLevel = mock(StockLevel.class);
+        when(stockLevel.getId()).thenReturn(7L);
+        when(stockLevel.getQuantity()).thenReturn(1);
+        when(stockLevel.getReorderLevel()).thenReturn(10);
+        when(bookRepository.findBelowReorderLevel(5)).thenReturn(List.of(stockLevel));
+        lowStockMonitor.seed();
+
+        lowStockMonitor.record(7L, 0, 10);
+
+        verify(eventPublisher, never()).publishEvent(any(LowStockAlert.class));
+        assertEquals(10, lowStockMonitor.getLowStock(0, 10).get(0).getReorderLevel());
+    }
+}
@@ -3,9 +3,15 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import bookstore.dto.OrderHistoryItem;
 import bookstore.dto.OrderRequest;
+import bookstore.dto.OrderResult;
+import bookstore.dto.OrderTicket;
 import bookstore.entity.Book;
 import bookstore.entity.Order;
+import bookstore.entity.OrderStatus;
+import bookstore.ingest.OrderIngestionQueue;
+import bookstore.serialization.ProtobufMessageConverter;
 import bookstore.service.BookService;
 import bookstore.service.OrderService;
 import org.junit.jupiter.api.Test;
@@ -14,9 +20,16 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpInputMessage;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
 
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -35,6 +48,9 @@ public class OrderControllerTest {
     @MockBean
     private OrderService orderService;
 
+    @MockBean
+    private OrderIngestionQueue orderIngestionQueue;
+
     @Test
     public void testOrderBook_FailWhenQuantityExceedsStock() throws Exception {
         Book book = new Book(1L, "Sample Book", "Author", "ISBN123", 100.0, 5, "Description");
@@ -73,7 +89,7 @@ public class OrderControllerTest {
 
     @Test
     public void testOrderBook_FailWhenBookNotInInventory() throws Exception {
-        when(bookService.getBookById(1L)).thenReturn(null);
+        when(orderService.createOrder(1L, 1L, 1)).thenThrow(new NoSuchElementException("Book with ID 1 not found."));
 
         OrderRequest orderRequest = new OrderRequest(1L, 1L, 1);
 
@@ -86,10 +102,102 @@ public class OrderControllerTest {
 
 
     @Test
-    public void testInventoryReductionAfterPurchase() throws Exception {
-        Book book = new Book(1L, "Sample Book", "Author", "ISBN123", 100.0, 10, "Description");
+    public void testCreateOrders_ReturnsPerItemResults() throws Exception {
+        Order order = new Order();
+        order.setId(1L);
+        order.setCustomerId(1L);
+        order.setBookId(1L);
+        order.setQuantity(2);
 
-        when(bookService.getBookById(book.getId())).thenReturn(book);
+        when(orderService.createOrders(anyList())).thenReturn(Arrays.asList(
+                OrderResult.success(order),
+                OrderResult.failure("Not enough quantity.")));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/orders/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"customerId\":1,\"bookId\":1,\"quantity\":2},{\"customerId\":2,\"bookId\":1,\"quantity\":50}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].success").value(true))
+                .andExpect(jsonPath("$[0].order.id").value(1))
+                .andExpect(jsonPath("$[1].success").value(false))
+                .andExpect(jsonPath("$[1].error").value("Not enough quantity."));
+    }
+
+    @Test
+    public void testGetOrdersByStatus_ReturnsBacklogPage() throws Exception {
+        Order order = new Order(7L, 1L, 1L, 2, OrderStatus.PROCESSING, LocalDateTime.now());
+        when(orderService.getOrdersByStatus("on processing", 0, 50)).thenReturn(Arrays.asList(order));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/orders").param("status", "on processing"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(7))
+                .andExpect(jsonPath("$[0].status").value("on processing"));
+    }
+
+    @Test
+    public void testUpdateOrderStatus_InvalidTransitionIsConflict() throws Exception {
+        when(orderService.updateOrderStatus(7L, "sent")).thenThrow(new IllegalStateException("Order with ID 7 cannot move from cancelled to sent."));
+
+        mockMvc.perform(MockMvcRequestBuilders.put("/api/orders/7/status").param("status", "sent"))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    public void testSubmitOrder_AsyncReturnsTicket() throws Exception {
+        when(orderIngestionQueue.submit(any(OrderRequest.class))).thenReturn(new OrderTicket("ticket-1"));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/orders")
+                        .header("Prefer", "respond-async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"customerId\":1,\"bookId\":1,\"quantity\":3}"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/orders/tickets/ticket-1"))
+                .andExpect(jsonPath("$.status").value("QUEUED"));
+
+        verify(orderService, never()).createOrder(anyLong(), anyLong(), anyInt());
+    }
+
+    @Test
+    public void testSubmitOrder_AsyncAmongOtherPreferences() throws Exception {
+        when(orderIngestionQueue.submit(any(OrderRequest.class))).thenReturn(new OrderTicket("ticket-2"));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/orders")
+                        .header("Prefer", "respond-async, wait=5")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"customerId\":1,\"bookId\":1,\"quantity\":3}"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/orders/tickets/ticket-2"));
+
+        verify(orderService, never()).createOrder(anyLong(), anyLong(), anyInt());
+    }
+
+    @Test
+    public void testSubmitOrder_IdempotencyKeyReplaysTicket() throws Exception {
+        when(orderIngestionQueue.submit(any(OrderRequest.class))).thenReturn(new OrderTicket("ticket-3"));
+        String body = objectMapper.writeValueAsString(new OrderRequest(1L, 1L, 4));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/orders")
+                        .header("Prefer", "respond-async")
+                        .header("Idempotency-Key", "async-replay-test")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isAccepted())
+                .andExpect(header().doesNotExist("Idempotent-Replayed"));
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/orders")
+                        .header("Prefer", "respond-async")
+                        .header("Idempotency-Key", "async-replay-test")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(header().string("Location", "/api/orders/tickets/ticket-3"));
+
+        verify(orderIngestionQueue, times(1)).submit(any(OrderRequest.class));
+    }
+
+    @Test
+    public void testInventoryReductionLeftToOrderService() throws Exception {
+        Book book = new Book(1L, "Sample Book", "Author", "ISBN123", 100.0, 10, "Description");
 
         Order order = new Order();
         order.setId(1L);
@@ -104,9 +212,128 @@ public class OrderControllerTest {
                         .content("{\"customerId\":1,\"bookId\":1,\"quantity\":3}"))
                 .andExpect(status().isCreated());
 
-        verify(bookService).updateBook(eq(book.getId()), any(Book.class));
+        verify(orderService).createOrder(1L, book.getId(), 3);
+        verify(bookService, never()).getBookById(anyLong());
+        verify(bookService, never()).updateBook(anyLong(), any(Book.class));
+    }
+
+    @Test
+    public void testGetOrderHistory_ReturnsProjectedPage() throws Exception {
+        OrderHistoryItem item = new OrderHistoryItem(7L, 1L, "Sample Book", 2, OrderStatus.DELIVERED,
+                LocalDateTime.of(2024, 5, 1, 12, 0));
+        when(orderService.getOrderHistory(1L, LocalDate.of(2024, 5, 1), LocalDate.of(2024, 5, 31), 0, 20))
+                .thenReturn(Arrays.asList(item));
 
-        assertEquals(7, book.getQuantity());
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/orders/customer/1/history")
+                        .param("from", "2024-05-01")
+                        .param("to", "2024-05-31")
+                        .param("size", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].bookTitle").value("Sample Book"))
+                .andExpect(jsonPath("$[0].status").value("delivered"));
+    }
+
+    @Test
+    public void testGetOrderHistory_InvertedRange() throws Exception {
+        when(orderService.getOrderHistory(eq(1L), any(), any(), anyInt(), anyInt()))
+                .thenThrow(new IllegalArgumentException("'from' must not be after 'to'."));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/orders/customer/1/history")
+                        .param("from", "2024-05-31")
+                        .param("to", "2024-05-01"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testGetOrderById_AsCbor() throws Exception {
+        Order order = new Order();
+        order.setId(3L);
+        order.setCustomerId(1L);
+        order.setBookId(1L);
+        order.setQuantity(2);
+        order.setStatus(OrderStatus.PROCESSING);
+        when(orderService.getOrderById(3L)).thenReturn(order);
+
+        byte[] body = mockMvc.perform(MockMvcRequestBuilders.get("/api/orders/3")
+                        .accept("application/cbor"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/cbor"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        Order decoded = new CBORMapper().findAndRegisterModules().readValue(body, Order.class);
+        assertEquals(3L, decoded.getId());
+        assertEquals(OrderStatus.PROCESSING, decoded.getStatus());
+    }
+
+    @Test
+    public void testGetOrderById_AsProtobuf() throws Exception {
+        Order order = new Order();
+        order.setId(3L);
+        order.setCustomerId(1L);
+        order.setBookId(1L);
+        order.setQuantity(2);
+        order.setStatus(OrderStatus.SENT);
+        order.setOrderDate(LocalDateTime.of(2024, 5, 1, 12, 30));
+        when(orderService.getOrderById(3L)).thenReturn(order);
+
+        byte[] body = mockMvc.perform(MockMvcRequestBuilders.get("/api/orders/3")
+                        .accept("application/x-protobuf"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-protobuf"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        Order decoded = (Order) new ProtobufMessageConverter(Order.class)
+                .read(Order.class, new MockHttpInputMessage(body));
+        assertEquals(3L, decoded.getId());
+        assertEquals(2, decoded.getQuantity());
+        assertEquals(OrderStatus.SENT, decoded.getStatus());
+        assertEquals(LocalDateTime.of(2024, 5, 1, 12, 30), decoded.getOrderDate());
+    }
+
+    @Test
+    public void testCreateOrder_IdempotencyKeyReplaysResponse() throws Exception {
+        Order order = new Order();
+        order.setId(11L);
+        order.setCustomerId(1L);
+        order.setBookId(1L);
+        order.setQuantity(2);
+        when(orderService.createOrder(1L, 1L, 2)).thenReturn(order);
+        String body = objectMapper.writeValueAsString(new OrderRequest(1L, 1L, 2));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/orders")
+                        .header("Idempotency-Key", "replay-test")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist("Idempotent-Replayed"));
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/orders")
+                        .header("Idempotency-Key", "replay-test")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(jsonPath("$.id").value(11));
+
+        verify(orderService, times(1)).createOrder(1L, 1L, 2);
     }
-}
 
+    @Test
+    public void testCreateOrder_IdempotencyKeyReusedWithDifferentRequest() throws Exception {
+        Order order = new Order();
+        order.setId(12L);
+        when(orderService.createOrder(1L, 1L, 1)).thenReturn(order);
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/orders")
+                        .header("Idempotency-Key", "mismatch-test")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new OrderRequest(1L, 1L, 1))))
+                .andExpect(status().isCreated());
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/orders")
+                        .header("Idempotency-Key", "mismatch-test")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new OrderRequest(1L, 1L, 3))))
+                .andExpect(status().isUnprocessableEntity());
+
+        verify(orderService, never()).createOrder(1L, 1L, 3);
+    }
+}
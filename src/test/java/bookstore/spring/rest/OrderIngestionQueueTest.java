@@ -0,0 +1,95 @@
+package bookstore.spring.rest;
+
+import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import bookstore.dto.OrderRequest;
+import bookstore.dto.OrderResult;
+import bookstore.dto.OrderTicket;
+import bookstore.entity.Order;
+import bookstore.ingest.OrderIngestionQueue;
+import bookstore.service.OrderService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class OrderIngestionQueueTest {
+
+    private OrderService orderService;
+    private OrderIngestionQueue queue;
+
+    @BeforeEach
+    public void setUp() {
+        orderService = mock(OrderService.class);
+        when(orderService.createOrders(anyList())).thenAnswer(invocation -> {
+            List<OrderRequest> requests = invocation.getArgument(0);
+            List<OrderResult> results = new ArrayList<>();
+            for (OrderRequest request : requests) {
+                Order order = new Order();
+                order.setBookId(request.getBookId());
+                results.add(OrderResult.success(order));
+            }
+            return results;
+        });
+        queue = new OrderIngestionQueue(orderService, 100, 50, Duration.ofMillis(20), Duration.ofMinutes(1));
+        queue.start();
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        queue.stop();
+    }
+
+    @Test
+    public void testSubmit_CommitsQueuedOrdersInBatches() throws Exception {
+        List<OrderTicket> tickets = new ArrayList<>();
+        for (long i = 0; i < 20; i++) {
+            tickets.add(queue.submit(new OrderRequest(1L, i, 1)));
+        }
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (tickets.stream().anyMatch(ticket -> ticket.getStatus() == OrderTicket.Status.QUEUED)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertTrue(tickets.stream().allMatch(ticket -> ticket.getStatus() == OrderTicket.Status.COMPLETED));
+        verify(orderService, atMost(20)).createOrders(anyList());
+        assertEquals(19L, queue.getTicket(tickets.get(19).getTicketId()).orElseThrow().getOrder().getBookId());
+    }
+
+    @Test
+    public void testStop_CommitsQueuedOrdersWithoutInterrupting() throws Exception {
+        AtomicBoolean interrupted = new AtomicBoolean();
+        when(orderService.createOrders(anyList())).thenAnswer(invocation -> {
+            Thread.sleep(50);
+            interrupted.compareAndSet(false, Thread.currentThread().isInterrupted());
+            List<OrderResult> results = new ArrayList<>();
+            int size = invocation.<List<?>>getArgument(0).size();
+            for (int i = 0; i < size; i++) {
+                results.add(OrderResult.success(new Order()));
+            }
+            return results;
+        });
+        List<OrderTicket> tickets = new ArrayList<>();
+        for (long i = 0; i < 20; i++) {
+            tickets.add(queue.submit(new OrderRequest(1L, i, 1)));
+        }
+
+        queue.stop();
+
+        assertTrue(tickets.stream().allMatch(ticket -> ticket.getStatus() == OrderTicket.Status.COMPLETED));
+        assertFalse(interrupted.get());
+        assertThrows(IllegalStateException.class, () -> queue.submit(new OrderRequest(1L, 1L, 1)));
+    }
+
+    @Test
+    public void testSubmit_RejectsInvalidOrders() {
+        assertThrows(IllegalArgumentException.class, () -> queue.submit(new OrderRequest(1L, 1L, 0)));
+    }
+}
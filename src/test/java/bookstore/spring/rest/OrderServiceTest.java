@@ -3,16 +3,22 @@ package bookstore.spring.rest;
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
 
+import bookstore.analytics.SalesAggregator;
+import bookstore.dto.OrderHistoryItem;
 import bookstore.dto.OrderRequest;
+import bookstore.dto.OrderResult;
 import bookstore.entity.Book;
 import bookstore.entity.Order;
+import bookstore.entity.OrderStatus;
 import bookstore.repository.OrderRepository;
 import bookstore.service.BookService;
 import bookstore.service.OrderService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
+import org.springframework.data.domain.Pageable;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
 
@@ -24,6 +30,9 @@ public class OrderServiceTest {
     @Mock
     private BookService bookService;
 
+    @Mock
+    private SalesAggregator salesAggregator;
+
     @InjectMocks
     private OrderService orderService;
 
@@ -41,58 +50,166 @@ public class OrderServiceTest {
         mockBook.setQuantity(10);
         mockBook.setPrice(20.0);
         mockBook.setDescription("A great book");
-
-        when(bookService.getBookById(101L)).thenReturn(mockBook);
     }
 
     @Test
     public void testCreateOrder_Success() {
         OrderRequest orderRequest = new OrderRequest(1L, 1L, 2);
 
-        Order mockOrder = new Order(1L, 1L, 1L, 2, "on processing", LocalDateTime.now());
+        Order mockOrder = new Order(1L, 1L, 1L, 2, OrderStatus.PROCESSING, LocalDateTime.now());
         when(orderRepository.save(any(Order.class))).thenReturn(mockOrder);
-        when(bookService.getBookById(anyLong())).thenReturn(mockBook);
 
         Order createdOrder = orderService.createOrder(orderRequest.getCustomerId(), orderRequest.getBookId(), orderRequest.getQuantity());
 
+        verify(bookService).reserveStock(1L, 2);
+        verify(bookService, never()).updateBook(anyLong(), any(Book.class));
+        verify(salesAggregator).recordPlaced(mockOrder);
         assertNotNull(createdOrder.getId());
         assertEquals(orderRequest.getCustomerId(), createdOrder.getCustomerId());
         assertEquals(orderRequest.getBookId(), createdOrder.getBookId());
         assertEquals(orderRequest.getQuantity(), createdOrder.getQuantity());
     }
 
+    @Test
+    public void testCreateOrder_StoresUnitPrice() {
+        when(bookService.getPrices(List.of(101L))).thenReturn(Map.of(101L, 20.0));
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Order createdOrder = orderService.createOrder(1L, 101L, 2);
+
+        assertEquals(20.0, createdOrder.getUnitPrice());
+    }
+
     @Test
     public void testCreateOrder_BookNotFound() {
-        when(bookService.getBookById(101L)).thenReturn(null);
+        doThrow(new NoSuchElementException("Book with ID 101 not found.")).when(bookService).reserveStock(101L, 2);
 
         OrderRequest orderRequest = new OrderRequest(1L, 101L, 2);
 
         assertThrows(NoSuchElementException.class, () -> {
             orderService.createOrder(orderRequest.getCustomerId(), orderRequest.getBookId(), orderRequest.getQuantity());
         });
+        verify(orderRepository, never()).save(any(Order.class));
     }
 
     @Test
     public void testCreateOrder_InsufficientStock() {
-        mockBook.setQuantity(1);
-
-        when(bookService.getBookById(101L)).thenReturn(mockBook);
+        doThrow(new IllegalArgumentException("Not enough quantity.")).when(bookService).reserveStock(101L, 2);
 
         OrderRequest orderRequest = new OrderRequest(1L, 101L, 2);
 
         assertThrows(IllegalArgumentException.class, () -> {
             orderService.createOrder(orderRequest.getCustomerId(), orderRequest.getBookId(), orderRequest.getQuantity());
         });
+        verify(orderRepository, never()).save(any(Order.class));
+    }
+    @Test
+    public void testCreateOrders_GroupsStockDecrementsPerBook() {
+        List<OrderRequest> orderRequests = Arrays.asList(
+                new OrderRequest(1L, 101L, 4),
+                new OrderRequest(2L, 101L, 5),
+                new OrderRequest(3L, 101L, 3),
+                new OrderRequest(4L, 202L, 1),
+                new OrderRequest(5L, 101L, 0));
+
+        when(bookService.getStockLevels(anyCollection())).thenReturn(Map.of(101L, 10));
+        when(bookService.tryReserveStock(101L, 9)).thenReturn(true);
+        when(orderRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<OrderResult> results = orderService.createOrders(orderRequests);
+
+        verify(bookService, times(1)).tryReserveStock(anyLong(), anyInt());
+        verify(bookService).tryReserveStock(101L, 9);
+        assertEquals(5, results.size());
+        assertTrue(results.get(0).isSuccess());
+        assertTrue(results.get(1).isSuccess());
+        assertEquals(2L, results.get(1).getOrder().getCustomerId());
+        assertFalse(results.get(2).isSuccess());
+        assertFalse(results.get(3).isSuccess());
+        assertFalse(results.get(4).isSuccess());
+    }
+
+    @Test
+    public void testCreateOrders_FailsBookItemsWhenConcurrentlySoldOut() {
+        List<OrderRequest> orderRequests = Arrays.asList(
+                new OrderRequest(1L, 101L, 2),
+                new OrderRequest(2L, 101L, 2));
+
+        when(bookService.getStockLevels(anyCollection())).thenReturn(Map.of(101L, 10));
+        when(bookService.tryReserveStock(101L, 4)).thenReturn(false);
+        when(orderRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<OrderResult> results = orderService.createOrders(orderRequests);
+
+        assertFalse(results.get(0).isSuccess());
+        assertFalse(results.get(1).isSuccess());
+        verify(orderRepository).saveAll(Collections.emptyList());
+    }
+
+    @Test
+    public void testCreateOrders_HugeQuantityDoesNotOverflowReservation() {
+        List<OrderRequest> orderRequests = Arrays.asList(
+                new OrderRequest(1L, 101L, 100),
+                new OrderRequest(2L, 101L, Integer.MAX_VALUE));
+
+        when(bookService.getStockLevels(anyCollection())).thenReturn(Map.of(101L, 100));
+        when(bookService.tryReserveStock(101L, 100)).thenReturn(true);
+        when(orderRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<OrderResult> results = orderService.createOrders(orderRequests);
+
+        assertTrue(results.get(0).isSuccess());
+        assertFalse(results.get(1).isSuccess());
+        verify(bookService).tryReserveStock(101L, 100);
+        verify(bookService, times(1)).tryReserveStock(anyLong(), anyInt());
     }
+
     @Test
     public void testUpdateOrderStatus_Success() {
-        Order existingOrder = new Order(1L, 1L, 1L, 2, "on processing", LocalDateTime.now());
+        Order existingOrder = new Order(1L, 1L, 1L, 2, OrderStatus.PROCESSING, LocalDateTime.now());
         when(orderRepository.findById(1L)).thenReturn(Optional.of(existingOrder));
-        when(orderRepository.save(any(Order.class))).thenReturn(existingOrder);
+        when(orderRepository.updateStatus(1L, OrderStatus.PROCESSING, OrderStatus.SENT)).thenReturn(1);
 
         Order updatedOrder = orderService.updateOrderStatus(1L, "sent");
 
-        assertEquals("sent", updatedOrder.getStatus());
+        assertEquals(OrderStatus.SENT, updatedOrder.getStatus());
+        verify(salesAggregator, never()).recordCancelled(any(Order.class));
+    }
+
+    @Test
+    public void testUpdateOrderStatus_CancellationUpdatesSales() {
+        Order existingOrder = new Order(1L, 1L, 1L, 2, OrderStatus.PROCESSING, LocalDateTime.now());
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(existingOrder));
+        when(orderRepository.updateStatus(1L, OrderStatus.PROCESSING, OrderStatus.CANCELLED)).thenReturn(1);
+
+        orderService.updateOrderStatus(1L, "cancelled");
+
+        verify(salesAggregator).recordCancelled(existingOrder);
+    }
+
+    @Test
+    public void testUpdateOrderStatus_ConcurrentCancellationRecordedOnce() {
+        Order existingOrder = new Order(1L, 1L, 1L, 2, OrderStatus.PROCESSING, LocalDateTime.now());
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(existingOrder));
+        when(orderRepository.updateStatus(1L, OrderStatus.PROCESSING, OrderStatus.CANCELLED)).thenReturn(0);
+
+        assertThrows(IllegalStateException.class, () -> orderService.updateOrderStatus(1L, "cancelled"));
+        verify(salesAggregator, never()).recordCancelled(any(Order.class));
+    }
+
+    @Test
+    public void testUpdateOrderStatus_RejectsInvalidTransition() {
+        Order existingOrder = new Order(1L, 1L, 1L, 2, OrderStatus.CANCELLED, LocalDateTime.now());
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(existingOrder));
+
+        assertThrows(IllegalStateException.class, () -> orderService.updateOrderStatus(1L, "sent"));
+        verify(orderRepository, never()).updateStatus(anyLong(), any(OrderStatus.class), any(OrderStatus.class));
+    }
+
+    @Test
+    public void testUpdateOrderStatus_RejectsUnknownStatus() {
+        assertThrows(IllegalArgumentException.class, () -> orderService.updateOrderStatus(1L, "lost in space"));
+        verify(orderRepository, never()).findById(anyLong());
     }
 
     @Test
@@ -105,8 +222,8 @@ public class OrderServiceTest {
     }
     @Test
     public void testGetOrdersByCustomerId_Success() {
-        Order order1 = new Order(1L, 1L, 1L, 2, "on processing", LocalDateTime.now());
-        Order order2 = new Order(2L, 1L, 1L, 2, "on processing", LocalDateTime.now());
+        Order order1 = new Order(1L, 1L, 1L, 2, OrderStatus.PROCESSING, LocalDateTime.now());
+        Order order2 = new Order(2L, 1L, 1L, 2, OrderStatus.PROCESSING, LocalDateTime.now());
         List<Order> customerOrders = Arrays.asList(order1, order2);
 
         when(orderRepository.findByCustomerId(1L)).thenReturn(customerOrders);
@@ -126,4 +243,25 @@ public class OrderServiceTest {
         assertTrue(orders.isEmpty());
     }
 
+    @Test
+    public void testGetOrderHistory_ConvertsDatesToHalfOpenRange() {
+        OrderHistoryItem item = new OrderHistoryItem(5L, 101L, "Book Title", 1, OrderStatus.SENT,
+                LocalDateTime.of(2024, 3, 31, 23, 59));
+        when(orderRepository.findHistory(eq(1L), any(LocalDateTime.class), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(item));
+
+        List<OrderHistoryItem> history = orderService.getOrderHistory(1L, LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 31), 0, 10_000);
+
+        ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+        verify(orderRepository).findHistory(eq(1L), eq(LocalDateTime.of(2024, 3, 1, 0, 0)),
+                eq(LocalDateTime.of(2024, 4, 1, 0, 0)), pageable.capture());
+        assertEquals(OrderService.MAX_PAGE_SIZE, pageable.getValue().getPageSize());
+        assertEquals("Book Title", history.get(0).getBookTitle());
+    }
+
+    @Test
+    public void testGetOrderHistory_RejectsInvertedRange() {
+        assertThrows(IllegalArgumentException.class,
+                () -> orderService.getOrderHistory(1L, LocalDate.of(2024, 3, 2), LocalDate.of(2024, 3, 1), 0, 50));
+    }
 }
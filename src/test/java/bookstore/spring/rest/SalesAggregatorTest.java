@@ -0,0 +1,101 @@
+package bookstore.spring.rest;
+
+import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import bookstore.analytics.SalesAggregator;
+import bookstore.cache.BookCache;
+import bookstore.dto.AuthorRevenue;
+import bookstore.dto.BookSales;
+import bookstore.dto.DailySales;
+import bookstore.entity.Book;
+import bookstore.entity.Order;
+import bookstore.entity.OrderStatus;
+import bookstore.repository.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public class SalesAggregatorTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 6, 15);
+
+    private BookCache bookCache;
+    private SalesAggregator salesAggregator;
+
+    @BeforeEach
+    public void setUp() {
+        OrderRepository orderRepository = mock(OrderRepository.class);
+        when(orderRepository.summarizeSalesSince(any(), any())).thenReturn(Collections.emptyList());
+        bookCache = mock(BookCache.class);
+        when(bookCache.findById(1L)).thenReturn(Optional.of(new Book(1L, "First", "Alice", "111", 10.0, 5, "")));
+        when(bookCache.findById(2L)).thenReturn(Optional.of(new Book(2L, "Second", "Bob", "222", 2.5, 5, "")));
+        when(bookCache.findAllById(anyCollection())).thenAnswer(invocation -> {
+            Map<Long, Book> books = new HashMap<>();
+            for (Long id : invocation.<Collection<Long>>getArgument(0)) {
+                bookCache.findById(id).ifPresent(book -> books.put(id, book));
+            }
+            return books;
+        });
+
+        Clock clock = Clock.fixed(TODAY.atStartOfDay().toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+        salesAggregator = new SalesAggregator(orderRepository, bookCache, 30, clock);
+        salesAggregator.rebuild();
+    }
+
+    @Test
+    public void testRollups_AddPlacedAndSubtractCancelledOrders() {
+        salesAggregator.recordPlaced(order(1L, 1L, 2, TODAY));
+        salesAggregator.recordPlaced(order(2L, 2L, 10, TODAY));
+        Order cancelled = order(3L, 1L, 1, TODAY.minusDays(1));
+        salesAggregator.recordPlaced(cancelled);
+        salesAggregator.recordCancelled(cancelled);
+
+        List<BookSales> top = salesAggregator.topBooks(TODAY.minusDays(6), TODAY, 10);
+        assertEquals(2L, top.get(0).getBookId());
+        assertEquals(10, top.get(0).getUnits());
+        assertEquals("First", top.get(1).getTitle());
+        assertEquals(20.0, top.get(1).getRevenue());
+        verify(bookCache, times(1)).findAllById(anyCollection());
+
+        List<DailySales> daily = salesAggregator.daily(TODAY.minusDays(1), TODAY);
+        assertEquals(0, daily.get(0).getUnits());
+        assertEquals(12, daily.get(1).getUnits());
+        assertEquals(45.0, daily.get(1).getRevenue());
+
+        List<AuthorRevenue> authors = salesAggregator.revenueByAuthor(TODAY, TODAY);
+        assertEquals("Bob", authors.get(0).getAuthor());
+        assertEquals(25.0, authors.get(0).getRevenue());
+    }
+
+    @Test
+    public void testRollups_UseTheOrderedUnitPriceAfterAPriceChange() {
+        Order order = order(1L, 1L, 2, TODAY);
+        order.setUnitPrice(10.0);
+        salesAggregator.recordPlaced(order);
+        when(bookCache.findById(1L)).thenReturn(Optional.of(new Book(1L, "First", "Alice", "111", 12.0, 5, "")));
+        salesAggregator.recordCancelled(order);
+
+        assertEquals(0.0, salesAggregator.daily(TODAY, TODAY).get(0).getRevenue());
+    }
+
+    @Test
+    public void testRollups_IgnoreOrdersOutsideRetention() {
+        salesAggregator.recordPlaced(order(1L, 1L, 2, TODAY.minusDays(30)));
+
+        assertTrue(salesAggregator.topBooks(TODAY.minusDays(60), TODAY, 10).isEmpty());
+    }
+
+    private static Order order(Long id, Long bookId, int quantity, LocalDate day) {
+        return new Order(id, 1L, bookId, quantity, OrderStatus.PROCESSING, day.atTime(12, 0));
+    }
+}
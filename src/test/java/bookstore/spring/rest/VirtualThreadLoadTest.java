@@ -0,0 +1,137 @@
+package bookstore.spring.rest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import bookstore.CustomerRestApplication;
+import bookstore.entity.Book;
+import bookstore.service.BookService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.condition.JRE;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+@EnabledForJreRange(min = JRE.JAVA_21)
+public class VirtualThreadLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadLoadTest.class);
+
+    private static final int CLIENTS = Integer.getInteger("loadtest.clients", 1000);
+    private static final int REQUESTS_PER_CLIENT = Integer.getInteger("loadtest.requests", 20);
+    private static final int AUTHORS = 20;
+    // Run-to-run noise on a shared machine; virtual threads must not fall further behind than this.
+    private static final double THROUGHPUT_TOLERANCE = 0.9;
+
+    @Test
+    public void testCompareThreadModes() throws Exception {
+        LoadResult platform = run("platform", "--spring.threads.virtual.enabled=false");
+        LoadResult virtual = run("virtual", "--spring.profiles.active=virtual");
+
+        // WARN so the comparison survives the logging.level.root=WARN the load contexts run with.
+        log.atWarn()
+                .addKeyValue("platformThroughput", platform.throughput())
+                .addKeyValue("platformP99Millis", platform.p99Millis())
+                .addKeyValue("virtualThroughput", virtual.throughput())
+                .addKeyValue("virtualP99Millis", virtual.p99Millis())
+                .log("Thread mode comparison");
+
+        assertEquals(0, platform.failures);
+        assertEquals(0, virtual.failures);
+        assertTrue(virtual.throughput() >= platform.throughput() * THROUGHPUT_TOLERANCE,
+                "virtual-thread throughput " + virtual.throughput() + " req/s fell below platform " + platform.throughput() + " req/s");
+    }
+
+    private LoadResult run(String mode, String... args) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(CustomerRestApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:loadtest-" + mode + ";DB_CLOSE_DELAY=-1",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "logging.level.root=WARN")
+                .run(args)) {
+            BookService bookService = context.getBean(BookService.class);
+            for (int i = 0; i < AUTHORS * 10; i++) {
+                bookService.addBook(new Book(null, "Load Book " + i, "Author" + (i % AUTHORS), "load-" + i,
+                        10.0, 100, "Load test book " + i));
+            }
+
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            return fireLoad(baseUrl);
+        }
+    }
+
+    private LoadResult fireLoad(String baseUrl) throws Exception {
+        long[] latencies = new long[CLIENTS * REQUESTS_PER_CLIENT];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+        long started = System.nanoTime();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpClient httpClient = HttpClient.newBuilder()
+                    .executor(clients)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int client = 0; client < CLIENTS; client++) {
+                int clientId = client;
+                futures.add(clients.submit(() -> {
+                    for (int i = 0; i < REQUESTS_PER_CLIENT; i++) {
+                        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/books/author/Author" + ((clientId + i) % AUTHORS))).build();
+                        long requestStarted = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                failures.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            failures.incrementAndGet();
+                        }
+                        latencies[next.getAndIncrement()] = System.nanoTime() - requestStarted;
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        return new LoadResult(latencies, System.nanoTime() - started, failures.get());
+    }
+
+    private static class LoadResult {
+        private final long[] latencies;
+        private final long elapsedNanos;
+        private final int failures;
+
+        private LoadResult(long[] latencies, long elapsedNanos, int failures) {
+            this.latencies = latencies.clone();
+            Arrays.sort(this.latencies);
+            this.elapsedNanos = elapsedNanos;
+            this.failures = failures;
+        }
+
+        private double throughput() {
+            return latencies.length / (elapsedNanos / 1_000_000_000.0);
+        }
+
+        private double p99Millis() {
+            return latencies[(int) (latencies.length * 0.99) - 1] / 1_000_000.0;
+        }
+    }
+}